@@ -1,5 +1,6 @@
 package com.bitdecay.jump;
 
+import com.bitdecay.jump.collision.BodyStepState;
 import com.bitdecay.jump.collision.ContactListener;
 import com.bitdecay.jump.control.BitBodyController;
 import com.bitdecay.jump.exception.BitBodySerializeException;
@@ -110,10 +111,16 @@ public class BitBody {
     public BodyType bodyType = BodyType.STATIC;
 
     /**
-     * The velocity of the body
+     * The velocity of the body. Writing to this directly will not wake a sleeping body,
+     * use {@link #setVelocity(float, float)} for that.
      */
     public BitPoint velocity = new BitPoint(0, 0);
 
+    /**
+     * Bookkeeping the world keeps for this body as it steps
+     */
+    private final BodyStepState stepState = new BodyStepState();
+
     /**
      * A list of subscribed listeners for contact information as it happens
      */
@@ -131,6 +138,54 @@ public class BitBody {
         }
     }
 
+    /**
+     * Sets the velocity of the body, waking it up if it was sleeping
+     */
+    public void setVelocity(float x, float y) {
+        velocity.set(x, y);
+        wake();
+    }
+
+    public void setVelocity(BitPoint velocity) {
+        setVelocity(velocity.x, velocity.y);
+    }
+
+    /**
+     * Wakes the body up so it is moved and collided again starting with the next step
+     */
+    public void wake() {
+        stepState.wake();
+    }
+
+    /**
+     * @return true while the world has this body asleep. A sleeping body is not moved and
+     * does not look for collisions until it is woken up.
+     */
+    public boolean isSleeping() {
+        return stepState.isSleeping();
+    }
+
+    /**
+     * @return how long the body has been resting, used by the world to decide when to put it to sleep
+     */
+    public float getRestingTime() {
+        return stepState.getRestingTime();
+    }
+
+    /**
+     * @return true while this body is outside all of the world's activity regions
+     */
+    public boolean isOutsideActivity() {
+        return stepState.isOutsideActivity();
+    }
+
+    /**
+     * @return what the world keeps track of for this body as it steps. Read-only outside the world.
+     */
+    public BodyStepState getStepState() {
+        return stepState;
+    }
+
     public void addContactListener(ContactListener listener) {
         contactListeners.add(listener);
     }
@@ -0,0 +1,12 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+
+/**
+ * Notified when a body moves in to or out of the activity regions of a {@link BitWorld}.
+ * Called at the end of {@link BitWorld#step(float)} on the thread that called it.
+ */
+public interface ActivityListener {
+    void enteredActivity(BitBody body);
+    void leftActivity(BitBody body);
+}
@@ -14,12 +14,21 @@ public class BitCollision implements Comparable<BitCollision> {
 	public boolean contactOccurred;
 
 	public BitCollision(BitBody body, BitBody against) {
+		set(body, against);
+	}
+
+	/**
+	 * Points this collision at a new pair of bodies so it can be reused
+	 */
+	public BitCollision set(BitBody body, BitBody against) {
 		this.body = body;
 		this.against = against;
+		contactOccurred = false;
+		return this;
 	}
 
 	public boolean canBeIgnored() {
-		return body.resolutionLocked || (!body.props.collides || !against.props.collides);
+		return body.resolutionLocked || (!body.props.collides || !against.props.collides) || body.props.sensor || against.props.sensor;
 	}
 
 	@Override
@@ -2,12 +2,21 @@ package com.bitdecay.jump.collision;
 
 import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.annotation.VisibleForTesting;
 import com.bitdecay.jump.geom.*;
+import com.bitdecay.jump.level.ChunkedTileGrid;
 import com.bitdecay.jump.level.Level;
+import com.bitdecay.jump.level.MergedTileGrid;
+import com.bitdecay.jump.level.TileBody;
+import com.bitdecay.jump.level.TileGrid;
+import com.bitdecay.jump.level.TileLayer;
 import com.bitdecay.jump.level.TileObject;
+import com.bitdecay.jump.properties.BitBodyProperties;
 import com.bitdecay.jump.properties.KineticProperties;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * A Pseudo-Physics simulation world. Will step according to all body's
@@ -19,42 +28,154 @@ import java.util.*;
  */
 public class BitWorld {
 	public static final String VERSION = "0.2";
+	/**
+	 * The default number of internal steps per second, see {@link #setStepRate(float)}
+	 */
 	public static final float STEP_PER_SEC = 128f;
 	public static final float STEP_SIZE = 1 / STEP_PER_SEC;
+	/**
+	 * The most times collisions will be gathered and resolved in a single step
+	 */
+	public static final int MAX_RESOLUTION_ITERATIONS = 10;
+	/**
+	 * Step interval that keeps bodies outside the activity regions from being updated at all
+	 */
+	public static final int FREEZE = 0;
+	/**
+	 * How many internal steps go by between letting go of tile bodies nothing is near
+	 */
+	private static final int TILE_RELEASE_STEPS = 128;
 	/**
 	 * Holds left-over time when there isn't enough time for a full
-	 * {@link #STEP_SIZE}
+	 * internal step
 	 */
 	private float extraStepTime = 0;
 
+	private float stepsPerSecond = STEP_PER_SEC;
+	private float stepSize = STEP_SIZE;
+
 	private float timePassed;
 
 	private int tileSize = 0;
 	private BitPointInt gridOffset = new BitPointInt(0, 0);
-	private BitBody[][] gridObjects = new BitBody[0][0];
+	private TileLayer tiles = new TileGrid(0, 0, 0, gridOffset);
+	private boolean mergeTiles;
+	/**
+	 * Set when the tiles are streamed in around the bodies and activity regions
+	 */
+	private ChunkedTileGrid streamedTiles;
+	private final List<BitRectangle> streamAreas = new ArrayList<>();
+	/**
+	 * Reused rectangles for the areas each body could reach during a step
+	 */
+	private final List<BitRectangle> reachAreas = new ArrayList<>();
+	private final Consumer<TileBody> unloadTile = this::unloadTile;
 	private List<BitBody> dynamicBodies = new ArrayList<>();
 	private List<BitBody> kineticBodies = new ArrayList<>();
 	private List<BitBody> staticBodies = new ArrayList<>();
 
 	/**
-	 * A map of x to y to an occupying body.
+	 * Tracks which bodies occupy which parts of the world
+	 */
+	private final Broadphase broadphase;
+	private final BroadphaseCallback potentialCollisionCallback = this::maybeAddToPotentialCollisions;
+	private final CellRange levelCells = new CellRange();
+	/**
+	 * Resolution of each body this iteration. An identity map, so filling and clearing it every
+	 * iteration reuses one table instead of making an entry object per body.
 	 */
-	private Map<Integer, Map<Integer, Set<BitBody>>> occupiedSpaces;
 	private Map<BitBody, SATStrategy> potentialResolutions;
-	private SATStrategyComparator strategyComparator = new SATStrategyComparator();
+	private final StrategyOrder strategyOrder = new StrategyOrder();
+	private final List<SATStrategy> orderedResolutions = new ArrayList<>();
+	private final ResolutionIslands islands = new ResolutionIslands();
 
-	private Map<BitBody, Set<BitBody>> newContacts;
-	private Map<BitBody, Set<BitBody>> ongoingContacts;
-	private Map<BitBody, Set<BitBody>> endedContacts;
+	/**
+	 * Dynamic bodies to look for collisions on the next resolution iteration. Only used
+	 * after the first iteration, which always looks at every body.
+	 */
+	private final Set<BitBody> needsCollisionCheck = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean checkAllBodies;
+	private boolean alwaysCheckAllBodies;
 
 	/**
-	 * A READ-ONLY easy-access to gravity. Use setGravity(...) so that other things are properly set
-	 * internally.
+	 * How long, in seconds, a dynamic body has to rest before it is put to sleep. Sleeping
+	 * is off when this is not positive.
 	 */
-	public static BitPoint gravity = new BitPoint(0, 0);
-	private static BitPoint perpendicularGravity = new BitPoint(0, 0);
+	private float sleepDelay;
 
-	public static BitPoint maxSpeed = new BitPoint(2000, 2000);
+	/**
+	 * Bodies moving slower than this, in units per second, are considered resting
+	 */
+	private float sleepSpeed = 1;
+	/**
+	 * Dynamic and kinetic bodies outside all of these are frozen or updated at a reduced
+	 * rate. Every body is fully active when there are none.
+	 */
+	private final List<BitRectangle> activityRegions = new ArrayList<>();
+	private int inactiveStepInterval = FREEZE;
+	private final List<ActivityListener> activityListeners = new ArrayList<>();
+	private final List<BitBody> enteredActivity = new ArrayList<>();
+	private final List<BitBody> leftActivity = new ArrayList<>();
+	private long internalSteps;
+	private int nextStepPhase;
+
+	private final BroadphaseCallback wakeOverlapping = (body, other) -> {
+		if (other.isSleeping() && body.aabb.overlaps(other.aabb)) {
+			other.wake();
+		}
+	};
+
+	/**
+	 * The most recent resolution of every body looked at so far this step. Bodies that are
+	 * skipped keep the same candidates, so this tells which of them a change could affect.
+	 */
+	private final Map<BitBody, SATStrategy> latestResolutions = new IdentityHashMap<>();
+
+	/**
+	 * Resolutions and collisions are only needed until the end of a step, so they are handed
+	 * out from these and all taken back once the step is resolved
+	 */
+	private final StepPool<SATStrategy> strategyPool = new StepPool<>(() -> new SATStrategy(null));
+	private final StepPool<BitCollision> collisionPool = new StepPool<>(() -> new BitCollision(null, null));
+	private final Set<BitBody> changedBodies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private int resolutionIterations;
+	private int bodiesExamined;
+	private int peakResolutionIterations;
+	private int iterationLimitHits;
+
+	/**
+	 * Scratch points for the step math so stepping doesn't need to create new points.
+	 * One pool per thread, as bodies may be moved in parallel.
+	 */
+	private final ThreadLocal<BitPointPool> scratch = ThreadLocal.withInitial(BitPointPool::new);
+
+	/**
+	 * Pool used to move bodies and gather their collision candidates in parallel. Null
+	 * when the world steps serially.
+	 */
+	private ForkJoinPool parallelPool;
+
+	/**
+	 * Per dynamic body buffers of collision candidates gathered in parallel, indexed
+	 * the same as {@link #dynamicBodies}
+	 */
+	private CandidateBuffer[] candidateBuffers = new CandidateBuffer[0];
+
+	private final ContactManager contacts = new ContactManager();
+
+	/**
+	 * Contact events from every sub-step, handed to listeners at the end of {@link #step(float)}
+	 */
+	private final ContactEventBuffer contactEvents = new ContactEventBuffer();
+
+	/**
+	 * Gravity, speed limits and everything else about the simulation belong to the world,
+	 * so separate worlds can be stepped on separate threads.
+	 */
+	private final BitPoint gravity = new BitPoint(0, 0);
+	private final BitPoint perpendicularGravity = new BitPoint(0, 0);
+	private final BitPoint maxSpeed = new BitPoint(2000, 2000);
 
 	private List<BitBody> pendingAdds;
 	private List<BitBody> pendingRemoves;
@@ -62,15 +183,20 @@ public class BitWorld {
 	public final List<BitRectangle> unresolvedCollisions = new ArrayList<>();
 
 	public BitWorld() {
+		this(new SpatialHashBroadphase());
+	}
+
+	public BitWorld(Broadphase broadphase) {
+		this.broadphase = broadphase;
 		pendingAdds = new ArrayList<>();
 		pendingRemoves = new ArrayList<>();
-		occupiedSpaces = new HashMap<>();
-		potentialResolutions = new HashMap<>();
-		newContacts = new HashMap<>();
-		ongoingContacts = new HashMap<>();
-		endedContacts = new HashMap<>();
+		potentialResolutions = new IdentityHashMap<>();
 	}
 
+	/**
+	 * @return a READ-ONLY view of gravity. Use {@link #setGravity(float, float)} so that other
+	 * things are properly set internally.
+	 */
 	public BitPoint getGravity() {
 		return gravity;
 	}
@@ -80,7 +206,19 @@ public class BitWorld {
 		this.gravity.y = y;
 		this.perpendicularGravity.x = -y;
 		this.perpendicularGravity.y = x;
-		perpendicularGravity = perpendicularGravity.normalize();
+		perpendicularGravity.normalizeInto(perpendicularGravity);
+	}
+
+	/**
+	 * @return a READ-ONLY view of the fastest bodies may move along each axis, in units per second
+	 */
+	public BitPoint getMaxSpeed() {
+		return maxSpeed;
+	}
+
+	public void setMaxSpeed(float x, float y) {
+		maxSpeed.x = x;
+		maxSpeed.y = y;
 	}
 
 	public void addBody(BitBody body) {
@@ -92,14 +230,14 @@ public class BitWorld {
 	}
 
 	/**
-	 * steps the physics world in {@link BitWorld#STEP_SIZE} time steps. Any
+	 * steps the physics world in {@link #getStepSize()} time steps. Any
 	 * left over will be rolled over in to the next call to this method.
 	 * 
 	 * @param delta
 	 * @return true if the world stepped, false otherwise
 	 */
 	public boolean step(float delta) {
-		if (gridObjects == null) {
+		if (tiles == null) {
 			System.err.println("No level has been set into the world. Exiting...");
 			System.exit(-1);
 		} else if (tileSize <= 0) {
@@ -118,15 +256,19 @@ public class BitWorld {
 		boolean stepped = false;
 		//add any left over time from last call to step();
 		delta += extraStepTime;
-		while (delta > STEP_SIZE) {
+		while (delta > stepSize) {
 			stepped = true;
 			resolvedCollisions.clear();
 			unresolvedCollisions.clear();
-			internalStep(STEP_SIZE);
-			delta -= STEP_SIZE;
+			internalStep(stepSize);
+			delta -= stepSize;
 		}
 		// store off our leftover so it can be added in next time
 		extraStepTime = delta;
+
+		contactEvents.dispatch(contacts);
+		contacts.releaseRemoved();
+		dispatchActivityEvents();
 		return stepped;
 	}
 
@@ -138,88 +280,356 @@ public class BitWorld {
 		timePassed += delta;
 		// make sure world contains everything it should
 		doAddRemoves();
-
-		occupiedSpaces.clear();
+		internalSteps++;
+		updateStepSpans(dynamicBodies, delta);
+		updateStepSpans(kineticBodies, delta);
+		if (streamedTiles != null) {
+			streamTiles();
+		} else if (tiles instanceof TileGrid && internalSteps % TILE_RELEASE_STEPS == 0) {
+			releaseTiles();
+		}
 
 		/**
 		 * FIRST, MOVE EVERYTHING
 		 */
-		dynamicBodies.stream().forEach(body -> {
-			if (body.active) {
-				body.previousAttempt.set(body.currentAttempt);
-				body.lastPosition.set(body.aabb.xy);
-				updateDynamics(body, delta);
-				updateControl(body, delta);
-				moveBody(body, delta);
-				updateOccupiedSpaces(body);
-				resetCollisions(body);
-			}
-		});
+		if (parallelPool != null) {
+			moveDynamicBodiesInParallel(delta);
+		} else {
+			dynamicBodies.stream().forEach(body -> {
+				if (isStepping(body)) {
+					float bodyDelta = delta * body.getStepState().stepSpan;
+					body.previousAttempt.set(body.currentAttempt);
+					body.lastPosition.set(body.aabb.xy);
+					updateDynamics(body, bodyDelta);
+					updateControl(body, bodyDelta);
+					moveBody(body, bodyDelta);
+					broadphase.update(body);
+					resetCollisions(body);
+				}
+			});
+		}
 
 		kineticBodies.stream().forEach(body -> {
-			if (body.active) {
+			if (isStepping(body)) {
+				float bodyDelta = delta * body.getStepState().stepSpan;
 				body.previousAttempt.set(body.currentAttempt);
 				body.lastPosition.set(body.aabb.xy);
-				updateControl(body, delta);
-				moveBody(body, delta);
+				updateControl(body, bodyDelta);
+				moveBody(body, bodyDelta);
 				updateKinetics(body);
-				updateOccupiedSpaces(body);
+				broadphase.update(body);
 				resetCollisions(body);
 			}
 		});
-
-		staticBodies.stream().forEach(body -> {
-			if (body.active) {
-				updateOccupiedSpaces(body);
-			}
-		});
+		if (sleepDelay > 0) {
+			wakeDisturbedBodies();
+		}
 		/**
 		 * END OF MOVING EVERYTHING
 		 */
 
-		int remainingIterations = 10;
+		contacts.beginStep();
+		contacts.updateExisting();
+		int remainingIterations = MAX_RESOLUTION_ITERATIONS;
 		boolean continueCollisions = true;
+		checkAllBodies = true;
+		latestResolutions.clear();
+		resolutionIterations = 0;
+		bodiesExamined = 0;
 		while (continueCollisions) {
 			if (remainingIterations-- <= 0) {
+				iterationLimitHits++;
 				break;
 			}
+			resolutionIterations++;
 
 			/**
 			 * BUILD COLLISIONS
 			 */
-			dynamicBodies.stream().forEach(body -> {
-				if (body.active) {
-					buildLevelCollisions(body);
-					updateExistingContact(body);
-					findNewInteractions(body);
-				}
-			});
+			if (parallelPool != null) {
+				gatherCandidatesInParallel();
+			} else {
+				dynamicBodies.stream().forEach(body -> {
+					if (isStepping(body)) {
+						if (needsCollisionCheck(body)) {
+							bodiesExamined++;
+							buildLevelCollisions(body, levelCells, potentialCollisionCallback);
+							findNewInteractions(body);
+						}
+					}
+				});
+			}
 			/**
 			 * END COLLISIONS
 			 */
 
 			continueCollisions = resolveAndApplyPotentialResolutions();
 		}
+		latestResolutions.clear();
+		potentialResolutions.clear();
+		strategyPool.freeAll();
+		collisionPool.freeAll();
+		peakResolutionIterations = Math.max(peakResolutionIterations, resolutionIterations);
+		if (sleepDelay > 0) {
+			updateSleep(delta);
+		}
 
 		dynamicBodies.parallelStream().forEach(body -> {
 			if (body.active && body.renderStateWatcher != null) {
 				body.renderStateWatcher.update(body);
 			}
-			fireExpiredContacts(body);
-			fireContinuedContacts(body);
-			fireNewContacts(body);
 		});
+		contacts.recordEvents(contactEvents);
+		contacts.endStep();
+	}
+
+	/**
+	 * Same as the regular dynamic body pass, but each body is moved on the parallel pool.
+	 * Bodies are then placed in the broadphase one at a time in their usual order so it
+	 * ends up exactly as it would have serially.
+	 */
+	private void moveDynamicBodiesInParallel(float delta) {
+		ParallelRange.run(parallelPool, dynamicBodies.size(), i -> {
+			BitBody body = dynamicBodies.get(i);
+			if (isStepping(body)) {
+				float bodyDelta = delta * body.getStepState().stepSpan;
+				body.previousAttempt.set(body.currentAttempt);
+				body.lastPosition.set(body.aabb.xy);
+				updateDynamics(body, bodyDelta);
+				updateControl(body, bodyDelta);
+				moveBody(body, bodyDelta);
+				resetCollisions(body);
+			}
+		});
+		for (BitBody body : dynamicBodies) {
+			if (isStepping(body)) {
+				broadphase.update(body);
+			}
+		}
+	}
+
+	/**
+	 * Each body finds its candidates on the parallel pool, writing them to its own
+	 * buffer. The buffers are then merged one body at a time in the usual order, so the
+	 * potential resolutions are built exactly as they would have been serially.
+	 */
+	private void gatherCandidatesInParallel() {
+		int count = dynamicBodies.size();
+		if (candidateBuffers.length < count) {
+			CandidateBuffer[] buffers = Arrays.copyOf(candidateBuffers, Math.max(count, candidateBuffers.length * 2));
+			for (int i = candidateBuffers.length; i < buffers.length; i++) {
+				buffers[i] = new CandidateBuffer();
+			}
+			candidateBuffers = buffers;
+		}
+
+		broadphase.prepareQueries();
+		ParallelRange.run(parallelPool, count, i -> {
+			BitBody body = dynamicBodies.get(i);
+			CandidateBuffer buffer = candidateBuffers[i];
+			buffer.clear();
+			if (isStepping(body)) {
+				buffer.examined = needsCollisionCheck(body);
+				if (buffer.examined) {
+					buildLevelCollisions(body, buffer.cells, buffer);
+					broadphase.query(body, buffer);
+				}
+			}
+		});
+
+		for (int i = 0; i < count; i++) {
+			CandidateBuffer buffer = candidateBuffers[i];
+			BitBody body = dynamicBodies.get(i);
+			if (buffer.examined) {
+				bodiesExamined++;
+			}
+			for (int j = 0; j < buffer.count; j++) {
+				maybeAddToPotentialCollisions(body, buffer.candidates[j]);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Collects the candidates found for a single body, in the order they were found
+	 */
+	private static class CandidateBuffer implements BroadphaseCallback {
+		private final CellRange cells = new CellRange();
+		private BitBody[] candidates = new BitBody[16];
+		private int count;
+		private boolean examined;
+
+		@Override
+		public void candidate(BitBody body, BitBody other) {
+			if (!CollisionUtilities.canCollide(body, other)) {
+				return;
+			}
+			if (count == candidates.length) {
+				candidates = Arrays.copyOf(candidates, count * 2);
+			}
+			candidates[count++] = other;
+		}
+
+		void clear() {
+			Arrays.fill(candidates, 0, count, null);
+			count = 0;
+			examined = false;
+		}
+	}
+
+	/**
+	 * @return true if the body is moved and collided during the current step
+	 */
+	static boolean isStepping(BitBody body) {
+		BodyStepState state = body.getStepState();
+		return body.active && !state.sleeping && state.stepSpan > 0;
+	}
+
+	/**
+	 * Works out which bodies are outside the activity regions, and what part of this step
+	 * each of them covers. A body is updated every {@link BitBodyProperties#stepDivisor}
+	 * steps, or every {@link #inactiveStepInterval} steps outside the activity regions,
+	 * whichever is less often. Each update covers every step since the body was last
+	 * updated, so changing rates never loses or gains time. Bodies updated at a reduced rate
+	 * are spread across the steps of their interval by the order they were added in. Bodies
+	 * moving fast enough to pass through a tile in one reduced update are still updated every
+	 * step.
+	 */
+	private void updateStepSpans(List<BitBody> bodies, float delta) {
+		// the furthest a body may go in a single update before it could pass through a tile
+		float maxStepMovement = tileSize / 2f;
+		for (BitBody body : bodies) {
+			BodyStepState state = body.getStepState();
+			boolean outside = !activityRegions.isEmpty();
+			for (int j = 0; j < activityRegions.size() && outside; j++) {
+				outside = !activityRegions.get(j).overlaps(body.aabb);
+			}
+			if (outside != state.outsideActivity) {
+				state.outsideActivity = outside;
+				(outside ? leftActivity : enteredActivity).add(body);
+			}
+
+			int interval = Math.max(1, body.props.stepDivisor);
+			if (outside) {
+				interval = inactiveStepInterval == FREEZE ? FREEZE : Math.max(interval, inactiveStepInterval);
+			}
+
+			if (interval == FREEZE) {
+				// frozen bodies don't catch up on the time they spent frozen
+				state.stepSpan = 0;
+				state.stepsSinceUpdate = 0;
+			} else if (interval == 1
+					|| (internalSteps + state.stepPhase) % interval == 0
+					|| Math.max(Math.abs(body.velocity.x), Math.abs(body.velocity.y)) * delta * interval > maxStepMovement) {
+				// bodies too fast to take several steps at once keep being updated every step
+				state.stepSpan = state.stepsSinceUpdate + 1;
+				state.stepsSinceUpdate = 0;
+			} else {
+				state.stepSpan = 0;
+				state.stepsSinceUpdate++;
+			}
+			if (state.stepSpan == 0) {
+				// bodies sitting this step out aren't attempting to go anywhere
+				body.currentAttempt.set(0, 0);
+			}
+		}
+	}
+
+	/**
+	 * Puts every body back inside the activity regions. Step spans are worked out again on
+	 * the next step.
+	 */
+	private void resetActivity(List<BitBody> bodies) {
+		for (BitBody body : bodies) {
+			if (body.isOutsideActivity()) {
+				body.getStepState().outsideActivity = false;
+				enteredActivity.add(body);
+			}
+		}
+	}
+
+	private void dispatchActivityEvents() {
+		for (int i = 0; i < leftActivity.size(); i++) {
+			for (ActivityListener listener : activityListeners) {
+				listener.leftActivity(leftActivity.get(i));
+			}
+		}
+		for (int i = 0; i < enteredActivity.size(); i++) {
+			for (ActivityListener listener : activityListeners) {
+				listener.enteredActivity(enteredActivity.get(i));
+			}
+		}
+		leftActivity.clear();
+		enteredActivity.clear();
+	}
+
+	/**
+	 * Wakes up sleeping bodies that a kinetic body has moved in to, as well as sleeping
+	 * bodies whose parent has moved out from under them
+	 */
+	private void wakeDisturbedBodies() {
+		for (BitBody body : kineticBodies) {
+			if (body.active && (body.currentAttempt.x != 0 || body.currentAttempt.y != 0)) {
+				broadphase.query(body, wakeOverlapping);
+			}
+		}
+		for (BitBody body : dynamicBodies) {
+			if (body.isSleeping()) {
+				for (BitBody parent : body.parents) {
+					if (parent.currentAttempt.x != 0 || parent.currentAttempt.y != 0) {
+						body.wake();
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts bodies to sleep once they have been resting on the ground for {@link #sleepDelay}.
+	 * Resting means the body is grounded, has an idle or no controller, and is neither moving
+	 * nor being moved by resolution.
+	 */
+	private void updateSleep(float delta) {
+		for (BitBody body : dynamicBodies) {
+			if (!isStepping(body)) {
+				continue;
+			}
+			float bodyDelta = delta * body.getStepState().stepSpan;
+			float stepSpeed = sleepSpeed * bodyDelta;
+			float movedX = body.aabb.xy.x - body.lastPosition.x;
+			float movedY = body.aabb.xy.y - body.lastPosition.y;
+			boolean resting = body.props.canSleep && body.grounded
+					&& (body.controller == null || body.controller.isIdle())
+					&& body.velocity.x * body.velocity.x + body.velocity.y * body.velocity.y <= sleepSpeed * sleepSpeed
+					&& movedX * movedX + movedY * movedY <= stepSpeed * stepSpeed;
+			BodyStepState state = body.getStepState();
+			if (!resting) {
+				state.restingTime = 0;
+				continue;
+			}
+			state.restingTime += bodyDelta;
+			if (state.restingTime >= sleepDelay) {
+				state.sleeping = true;
+				body.velocity.set(0, 0);
+				body.currentAttempt.set(0, 0);
+				body.lastResolution.set(0, 0);
+			}
+		}
 	}
 
 	public void updateControl(BitBody body, float delta) {
 		if (body.controller != null) {
-			body.controller.update(delta, body);
+			body.controller.update(delta, body, this);
 		}
 	}
 
 	public void updateDynamics(BitBody body, float delta) {
 		if (body.props.gravitational) {
-			body.velocity.add(gravity.scale(body.props.gravityModifier).scale(delta));
+			BitPointPool pool = scratch.get();
+			BitPoint pull = gravity.scaleInto(body.props.gravityModifier, pool.obtain());
+			body.velocity.addScaled(pull, delta);
+			pool.free(pull);
 		}
 	}
 
@@ -230,16 +640,18 @@ public class BitWorld {
 			 * than the parents to guarantee that it still
 			 * collides if nothing else influences it's motion
 			 */
-			BitPoint influence;
 			if (body.props instanceof KineticProperties && ((KineticProperties)body.props).sticky) {
-				influence = body.currentAttempt.shrink(MathUtils.FLOAT_PRECISION);
+				BitPointPool pool = scratch.get();
+				BitPoint influence = body.currentAttempt.shrinkInto(MathUtils.FLOAT_PRECISION, pool.obtain());
+				child.aabb.translate(influence);
+				// the child did attempt to move this additional amount according to our engine
+				child.currentAttempt.add(influence);
+				pool.free(influence);
 			} else {
-				influence = perpendicularGravity.scale(body.currentAttempt.dot(perpendicularGravity));
+				float influence = body.currentAttempt.dot(perpendicularGravity);
+				child.aabb.translateScaled(perpendicularGravity, influence);
+				child.currentAttempt.addScaled(perpendicularGravity, influence);
 			}
-
-			child.aabb.translate(influence);
-			// the child did attempt to move this additional amount according to our engine
-			child.currentAttempt.add(influence);
 		}
 		body.children.clear();
 	}
@@ -247,7 +659,7 @@ public class BitWorld {
 	public void moveBody(BitBody body, float delta) {
 		body.velocity.x = Math.min(Math.abs(body.velocity.x), maxSpeed.x) * (body.velocity.x < 0 ? -1 : 1);
 		body.velocity.y = Math.min(Math.abs(body.velocity.y), maxSpeed.y) * (body.velocity.y < 0 ? -1 : 1);
-		body.currentAttempt = body.velocity.scale(delta);
+		body.velocity.scaleInto(delta, body.currentAttempt);
 		body.aabb.translate(body.currentAttempt);
 	}
 
@@ -266,11 +678,14 @@ public class BitWorld {
 		kineticBodies.removeAll(pendingRemoves);
 		staticBodies.removeAll(pendingRemoves);
 		pendingRemoves.stream().forEach(body -> {
-			removeFromContacts(body);
+			broadphase.remove(body);
+			contacts.remove(body);
 		});
 		pendingRemoves.clear();
 
 		for (BitBody body : pendingAdds) {
+			body.getStepState().stepPhase = nextStepPhase++;
+			body.getStepState().stepsSinceUpdate = 0;
 			if (BodyType.DYNAMIC == body.bodyType) {
 				dynamicBodies.add(body);
 			}
@@ -280,159 +695,142 @@ public class BitWorld {
 			if (BodyType.STATIC == body.bodyType) {
 				staticBodies.add(body);
 			}
-			addToContacts(body);
+			// static bodies are only ever placed in the broadphase here
+			broadphase.add(body);
 		}
 		pendingAdds.clear();
 	}
 
-	private boolean resolveAndApplyPotentialResolutions() {
-		boolean somethingWasResolved = false;
-		ArrayList<SATStrategy> list = new ArrayList<>(potentialResolutions.values());
-		Collections.sort(list, strategyComparator);
-		for (SATStrategy pending : list) {
-			somethingWasResolved |= pending.satisfy(this);
-			pending.potentialCollisions.forEach(bitCollision -> {
-				if (bitCollision.contactOccurred) {
-					maybeFlagNewContact(bitCollision.body, bitCollision.against);
-				}
-			});
-			applyResolution(pending);
-		}
-		potentialResolutions.clear();
-		return somethingWasResolved;
+	private boolean needsCollisionCheck(BitBody body) {
+		return checkAllBodies || alwaysCheckAllBodies || needsCollisionCheck.contains(body);
 	}
 
+	/**
+	 * Turns off skipping unchanged bodies on later resolution iterations
+	 */
+	@VisibleForTesting
+	void setAlwaysCheckAllBodies(boolean alwaysCheckAllBodies) {
+		this.alwaysCheckAllBodies = alwaysCheckAllBodies;
+	}
 
-	private void findNewInteractions(BitBody body) {
-		// We need to update each body against the level grid so we only collide things worth colliding
-		BitPoint startCell = body.aabb.xy.floorDivideBy(tileSize, tileSize).minus(gridOffset);
-
-		int endX = (int) (startCell.x + Math.ceil(1.0 * body.aabb.width / tileSize));
-		int endY = (int) (startCell.y + Math.ceil(1.0 * body.aabb.height / tileSize));
+	/**
+	 * Resolves every pending resolution in order. When a pool is set, the resolutions are
+	 * first split into islands that can't affect each other, and the islands are resolved
+	 * in parallel. This gives the same result as going through them in order.<br>
+	 * <br>
+	 * A body's resolution only depends on the body and its candidates. If none of them
+	 * were moved, locked, unlocked or crushed, checking it again would come up with the
+	 * exact same result, so only bodies that changed and bodies with a changed candidate
+	 * are checked on the next iteration.
+	 * @return true if anything was resolved
+	 */
+	private boolean resolveAndApplyPotentialResolutions() {
+		strategyOrder.sort(potentialResolutions.values(), orderedResolutions);
 
-		for (int x = (int) startCell.x; x <= endX; x++) {
-			if (!occupiedSpaces.containsKey(x)) {
-				continue;
+		boolean somethingWasResolved = false;
+		changedBodies.clear();
+		if (parallelPool != null) {
+			islands.build(orderedResolutions, potentialResolutions);
+			if (islands.count() > 1) {
+				ParallelRange.run(parallelPool, islands.count(), i -> resolveIsland(islands.get(i)));
+			} else if (islands.count() == 1) {
+				resolveIsland(islands.get(0));
 			}
-			for (int y = (int) startCell.y; y <= endY; y++) {
-				if (!occupiedSpaces.get(x).containsKey(y)) {
-					continue;
-				}
-				for (BitBody otherBody : occupiedSpaces.get(x).get(y)) {
-					if (otherBody != body) {
-						maybeAddToPotentialCollisions(body, otherBody);
-					}
-				}
+			for (int i = 0; i < islands.count(); i++) {
+				ResolutionIslands.Island island = islands.get(i);
+				somethingWasResolved |= island.resolved;
+				changedBodies.addAll(island.changedBodies);
 			}
-		}
-	}
-
-	private void addToContacts(BitBody body) {
-		newContacts.put(body, new HashSet<>());
-		ongoingContacts.put(body, new HashSet<>());
-		endedContacts.put(body, new HashSet<>());
-	}
-
-	private void removeFromContacts(BitBody body) {
-		newContacts.remove(body);
-		ongoingContacts.remove(body);
-		endedContacts.remove(body);
-	}
-
-	private void fireNewContacts(BitBody body) {
-		for (BitBody other : newContacts.get(body)) {
-			for (ContactListener listener : body.getContactListeners()) {
-				listener.contactStarted(other);
+		} else {
+			// without a pool there's nothing to gain from splitting into islands first. Settled
+			// bodies are already left out of the next iteration by needsCollisionCheck
+			for (SATStrategy pending : orderedResolutions) {
+				somethingWasResolved |= resolve(pending, changedBodies);
 			}
-			if (!BodyType.DYNAMIC.equals(other.bodyType)) {
-				// Since contacts are only reported from a dynamic perspective
-				for (ContactListener listener : other.getContactListeners()) {
-					listener.contactStarted(body);
+		}
+		for (SATStrategy resolution : orderedResolutions) {
+			latestResolutions.put(resolution.body, resolution);
+			// contacts are shared by every island, so they are recorded here rather than while resolving
+			for (int i = 0; i < resolution.collisionCount(); i++) {
+				BitCollision collision = resolution.collisionAt(i);
+				if (collision.contactOccurred) {
+					contacts.flagContact(collision.body, collision.against);
+					if (collision.against.isSleeping()) {
+						collision.against.wake();
+					}
 				}
 			}
+			if (resolution.crushed) {
+				contactEvents.addCrushed(contacts.idFor(resolution.body));
+			}
 		}
-		ongoingContacts.get(body).addAll(newContacts.get(body));
-		newContacts.get(body).clear();
-	}
 
-	private void fireExpiredContacts(BitBody body) {
-		for (BitBody other : endedContacts.get(body)) {
-			for (ContactListener listener : body.getContactListeners()) {
-				listener.contactEnded(other);
-			}
-			if (!BodyType.DYNAMIC.equals(other.bodyType)) {
-				for (ContactListener listener : other.getContactListeners()) {
-					listener.contactEnded(body);
+		checkAllBodies = false;
+		needsCollisionCheck.clear();
+		needsCollisionCheck.addAll(changedBodies);
+		if (!changedBodies.isEmpty()) {
+			for (SATStrategy resolution : latestResolutions.values()) {
+				for (int i = 0; i < resolution.collisionCount(); i++) {
+					if (changedBodies.contains(resolution.collisionAt(i).against)) {
+						needsCollisionCheck.add(resolution.body);
+						break;
+					}
 				}
 			}
 		}
-		endedContacts.get(body).clear();
+		potentialResolutions.clear();
+		orderedResolutions.clear();
+		return somethingWasResolved;
 	}
 
-	private void fireContinuedContacts(BitBody body) {
-		for (BitBody other : ongoingContacts.get(body)) {
-			for (ContactListener listener : body.getContactListeners()) {
-				listener.contact(other);
-			}
-			if (!BodyType.DYNAMIC.equals(other.bodyType)) {
-				for (ContactListener listener : other.getContactListeners()) {
-					listener.contact(body);
-				}
-			}
+	private void resolveIsland(ResolutionIslands.Island island) {
+		for (SATStrategy pending : island.strategies) {
+			island.resolved |= resolve(pending, island.changedBodies);
 		}
 	}
 
-	private void updateExistingContact(BitBody body) {
-		Iterator<BitBody> iterator = ongoingContacts.get(body).iterator();
-		BitBody otherBody;
-		while(iterator.hasNext()) {
-			otherBody = iterator.next();
-			if (ProjectionUtilities.getBundle(body.aabb, otherBody.aabb) == null) {
-				iterator.remove();
-				endedContacts.get(body).add(otherBody);
-			}
+	/**
+	 * Satisfies and applies a single resolution, adding the body to changed if it was
+	 * moved, locked, unlocked or crushed.
+	 * @return true if the body was moved
+	 */
+	private boolean resolve(SATStrategy pending, Collection<BitBody> changed) {
+		boolean wasLocked = pending.body.resolutionLocked;
+		boolean wasActive = pending.body.active;
+		boolean resolved = pending.satisfy(this);
+		applyResolution(pending);
+		if (resolved || wasLocked != pending.body.resolutionLocked || wasActive != pending.body.active) {
+			changed.add(pending.body);
 		}
+		return resolved;
 	}
 
-	private void buildLevelCollisions(BitBody body) {
-		// 1. determine tile that x,y lives in
-		BitPoint startCell = body.aabb.xy.floorDivideBy(tileSize, tileSize).minus(gridOffset);
-
-		// 2. determine width/height in tiles
-		int endX = (int) (startCell.x + Math.ceil(1.0 * body.aabb.width / tileSize));
-		int endY = (int) (startCell.y + Math.ceil(1.0 * body.aabb.height / tileSize));
 
-		// 3. loop over those all occupied tiles
-		for (int x = (int) startCell.x; x <= endX; x++) {
-			for (int y = (int) startCell.y; y <= endY; y++) {
-				// ensure valid cell
-				if (ArrayUtilities.onGrid(gridObjects, x, y) && gridObjects[x][y] != null) {
-					BitBody checkObj = gridObjects[x][y];
-					maybeAddToPotentialCollisions(body, checkObj);
-				}
-			}
-		}
+	private void findNewInteractions(BitBody body) {
+		// We need to update each body against the level grid so we only collide things worth colliding
+		broadphase.query(body, potentialCollisionCallback);
 	}
 
-	private void updateOccupiedSpaces(BitBody body) {
-		// 1. determine tile that x,y lives in
-		BitPoint startCell = body.aabb.xy.floorDivideBy(tileSize, tileSize).minus(gridOffset);
-
-		// 2. determine width/height in tiles
-		int endX = (int) (startCell.x + Math.ceil(1.0 * body.aabb.width / tileSize));
-		int endY = (int) (startCell.y + Math.ceil(1.0 * body.aabb.height / tileSize));
+	private void buildLevelCollisions(BitBody body, CellRange cells, BroadphaseCallback callback) {
+		// 1. determine which tiles the body covers
+		cells.set(body.aabb, tileSize, gridOffset);
 
-		// 3. loop over those all occupied tiles
-		for (int x = (int) startCell.x; x <= endX; x++) {
-			if (!occupiedSpaces.containsKey(x)) {
-				occupiedSpaces.put(x, new HashMap<Integer, Set<BitBody>>());
-			}
-			for (int y = (int) startCell.y; y <= endY; y++) {
-				if (!occupiedSpaces.get(x).containsKey(y)) {
-					occupiedSpaces.get(x).put(y, new HashSet<BitBody>());
+		// 2. loop over those all occupied tiles
+		for (int x = cells.startX; x <= cells.endX; x++) {
+			for (int y = cells.startY; y <= cells.endY; y++) {
+				// ensure valid cell
+				if (tiles.isSolid(x, y)) {
+					TileBody tile = tiles.getTile(x, y);
+					if (tile.aabb.width > tileSize || tile.aabb.height > tileSize) {
+						// a merged tile covers several cells, so only hand it over from the first one in range
+						int firstX = Math.max(cells.startX, Math.floorDiv((int) tile.aabb.xy.x, tileSize) - gridOffset.x);
+						int firstY = Math.max(cells.startY, Math.floorDiv((int) tile.aabb.xy.y, tileSize) - gridOffset.y);
+						if (x != firstX || y != firstY) {
+							continue;
+						}
+					}
+					callback.candidate(body, tile);
 				}
-				// mark the body as occupying the current grid coordinate
-				occupiedSpaces.get(x).get(y).add(body);
 			}
 		}
 	}
@@ -440,9 +838,8 @@ public class BitWorld {
 	private void applyResolution(SATStrategy resolution) {
 		if (resolution.resolution.x != 0 || resolution.resolution.y != 0) {
 			resolution.body.aabb.translate(resolution.resolution);
-			BitPoint velocityAdjustment = resolution.resolution.scale(BitWorld.STEP_PER_SEC);
-			resolution.body.velocity.add(velocityAdjustment);
-			if (BitWorld.gravity.dot(resolution.resolution) < 0) {
+			resolution.body.velocity.addScaled(resolution.resolution, stepsPerSecond / resolution.body.getStepState().stepSpan);
+			if (gravity.dot(resolution.resolution) < 0) {
 				resolution.body.grounded = true;
 			}
 		}
@@ -450,29 +847,199 @@ public class BitWorld {
 		resolution.body.resolutionLocked = resolution.lockingResolution;
 	}
 
-	private void maybeFlagNewContact(BitBody body, BitBody against) {
-		if (!ongoingContacts.get(body).contains(against)) {
-			if (!newContacts.containsKey(body)) {
-				newContacts.put(body, new HashSet<>());
-			}
-			newContacts.get(body).add(against);
-		}
-	}
-
 	private void maybeAddToPotentialCollisions(BitBody body, BitBody against) {
+		if (!CollisionUtilities.canCollide(body, against)) {
+			return;
+		}
 		if (BodyType.DYNAMIC.equals(body.bodyType) || BodyType.DYNAMIC.equals(against.bodyType)) {
 			// all we have to do is take out the xor if and dynamic bodies will collide. There are still bugs, however
-			if (!potentialResolutions.containsKey(body)) {
-				potentialResolutions.put(body, new SATStrategy(body));
-			}
 			SATStrategy resolution = potentialResolutions.get(body);
-			for (BitCollision collision : resolution.potentialCollisions) {
-				if (collision.against == against) {
-					return;
-				}
+			if (resolution == null) {
+				resolution = strategyPool.obtain();
+				resolution.reset(body);
+				potentialResolutions.put(body, resolution);
+			} else if (resolution.isCollidingWith(against)) {
+				return;
 			}
-			resolution.potentialCollisions.add(new BitCollision(body, against));
+			resolution.addCollision(collisionPool.obtain().set(body, against));
+		}
+	}
+
+	/**
+	 * @return how many resolution iterations the last step used, up to {@link #MAX_RESOLUTION_ITERATIONS}
+	 */
+	public int getResolutionIterations() {
+		return resolutionIterations;
+	}
+
+	/**
+	 * @return how many times a dynamic body had its collisions gathered during the last step,
+	 * summed over every resolution iteration
+	 */
+	public int getBodiesExamined() {
+		return bodiesExamined;
+	}
+
+	/**
+	 * @return the most resolution iterations used by a single step since the last {@link #resetStepMetrics()}
+	 */
+	public int getPeakResolutionIterations() {
+		return peakResolutionIterations;
+	}
+
+	/**
+	 * @return how many steps since the last {@link #resetStepMetrics()} stopped resolving
+	 * because they ran out of iterations
+	 */
+	public int getIterationLimitHits() {
+		return iterationLimitHits;
+	}
+
+	public void resetStepMetrics() {
+		peakResolutionIterations = 0;
+		iterationLimitHits = 0;
+	}
+
+	/**
+	 * Moves dynamic bodies and gathers their collision candidates on the given pool. Resolutions
+	 * are split into islands of bodies that can't affect each other, and the islands are
+	 * resolved on the pool as well. Without a pool no islands are built.
+	 * Results are identical to stepping serially. Controllers of different bodies will be
+	 * run at the same time, so they must not share unsynchronized state. Pass null to step
+	 * serially again.
+	 * @param pool
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		parallelPool = pool;
+	}
+
+	public ForkJoinPool getParallelPool() {
+		return parallelPool;
+	}
+
+	/**
+	 * Lets dynamic bodies fall asleep once they have been resting for the given time. A
+	 * sleeping body is not moved, controlled or collided until it is woken by an awake body
+	 * touching it, by a kinetic body moving in to it or out from under it, or by
+	 * {@link BitBody#setVelocity(float, float)}.
+	 * @param seconds how long a body must rest before sleeping. Zero or less turns sleeping off.
+	 */
+	public void setSleepDelay(float seconds) {
+		sleepDelay = seconds;
+		if (seconds <= 0) {
+			dynamicBodies.forEach(BitBody::wake);
+		}
+	}
+
+	public float getSleepDelay() {
+		return sleepDelay;
+	}
+
+	/**
+	 * @param speed the speed, in units per second, under which a body is considered resting
+	 */
+	public void setSleepSpeed(float speed) {
+		sleepSpeed = speed;
+	}
+
+	public float getSleepSpeed() {
+		return sleepSpeed;
+	}
+
+	/**
+	 * Adds a region of the world, usually around a player, that dynamic and kinetic bodies
+	 * are fully updated inside of. Once there is at least one region, bodies outside of all
+	 * of them are frozen or updated at a reduced rate, see {@link #setInactiveStepInterval(int)}.
+	 * The region is checked every step, so it can be moved around after it is added.
+	 * @param region
+	 */
+	public void addActivityRegion(BitRectangle region) {
+		activityRegions.add(region);
+	}
+
+	public void removeActivityRegion(BitRectangle region) {
+		activityRegions.remove(region);
+		if (activityRegions.isEmpty()) {
+			clearActivityRegions();
+		}
+	}
+
+	/**
+	 * Removes all activity regions, so every body is fully updated again
+	 */
+	public void clearActivityRegions() {
+		activityRegions.clear();
+		resetActivity(dynamicBodies);
+		resetActivity(kineticBodies);
+	}
+
+	public List<BitRectangle> getActivityRegions() {
+		return Collections.unmodifiableList(activityRegions);
+	}
+
+	/**
+	 * Sets how many internal steps the world takes per second of simulated time. Higher
+	 * rates are more accurate but cost more, lower rates let bodies move further in a single
+	 * step and so make it easier for fast bodies to pass through thin tiles. Individual
+	 * bodies can be updated less often than this with {@link BitBodyProperties#stepDivisor}.
+	 * @param stepsPerSecond the number of internal steps per second, {@link #STEP_PER_SEC} by default
+	 */
+	public void setStepRate(float stepsPerSecond) {
+		if (!(stepsPerSecond > 0)) {
+			throw new IllegalArgumentException("Step rate must be positive: " + stepsPerSecond);
 		}
+		this.stepsPerSecond = stepsPerSecond;
+		stepSize = 1 / stepsPerSecond;
+	}
+
+	public float getStepRate() {
+		return stepsPerSecond;
+	}
+
+	/**
+	 * @return the length of a single internal step, in seconds
+	 */
+	public float getStepSize() {
+		return stepSize;
+	}
+
+	/**
+	 * @param steps how often bodies outside the activity regions are updated, in internal steps.
+	 *              Each update covers all the time since the last one. {@link #FREEZE} stops
+	 *              them from being updated at all, which is the default.
+	 */
+	public void setInactiveStepInterval(int steps) {
+		if (steps < 0) {
+			throw new IllegalArgumentException("Step interval can not be negative: " + steps);
+		}
+		inactiveStepInterval = steps;
+	}
+
+	public int getInactiveStepInterval() {
+		return inactiveStepInterval;
+	}
+
+	public void addActivityListener(ActivityListener listener) {
+		activityListeners.add(listener);
+	}
+
+	public void removeActivityListener(ActivityListener listener) {
+		activityListeners.remove(listener);
+	}
+
+	/**
+	 * Contact listeners are always called at the end of {@link #step(float)}, on the thread
+	 * that called it. By default {@link ContactListener#contact(BitBody)} is called for every
+	 * internal step that two bodies stayed in contact. When coalescing, it is only called
+	 * once per call to {@link #step(float)}.
+	 * @param coalesce
+	 */
+	public void setCoalesceContactEvents(boolean coalesce) {
+		contactEvents.setCoalesceContinued(coalesce);
+	}
+
+	public boolean isCoalescingContactEvents() {
+		return contactEvents.isCoalescingContinued();
 	}
 
 	public List<BitBody> getDynamicBodies() {
@@ -489,6 +1056,7 @@ public class BitWorld {
 
 	public void setGridOffset(BitPointInt bodyOffset) {
 		this.gridOffset = bodyOffset;
+		rebuildBroadphase();
 	}
 
 	public void setLevel(Level level) {
@@ -499,37 +1067,142 @@ public class BitWorld {
 			System.exit(-2);
 		}
 		gridOffset = level.gridOffset;
+		rebuildBroadphase();
 		parseGrid(level.gridObjects);
 	}
 
+	/**
+	 * Reconfigures the broadphase for the current tile size and grid offset and puts
+	 * every body back into it.
+	 */
+	private void rebuildBroadphase() {
+		if (tileSize <= 0) {
+			// nothing can be bucketed until we know how big a tile is
+			return;
+		}
+		broadphase.configure(tileSize, gridOffset);
+		dynamicBodies.forEach(broadphase::add);
+		kineticBodies.forEach(broadphase::add);
+		staticBodies.forEach(broadphase::add);
+	}
+
 	public void setGrid(TileObject[][] grid) {
 		parseGrid(grid);
 	}
 
 	private void parseGrid(TileObject[][] grid) {
-		clearOutCurrentGrid();
-		gridObjects = new BitBody[grid.length][grid[0].length];
-		for (int x = 0; x < grid.length; x++) {
-			for (int y = 0; y < grid[0].length; y++) {
-				if (grid[x][y] != null) {
-					BitBody tileBody = grid[x][y].buildBody();
-					gridObjects[x][y] = tileBody;
-					addToContacts(tileBody);
+		clearOutCurrentGrid(null);
+		// the ground may have changed out from under sleeping bodies
+		dynamicBodies.forEach(BitBody::wake);
+		TileGrid parsed = TileGrid.fromObjects(grid, tileSize, gridOffset);
+		tiles = mergeTiles ? MergedTileGrid.merge(parsed) : parsed;
+		streamedTiles = null;
+	}
+
+	/**
+	 * When on, levels given to {@link #setLevel(Level)} or {@link #setGrid(TileObject[][])}
+	 * are compiled into a {@link MergedTileGrid}, so runs of matching tiles collide as a
+	 * single body. Only applies to levels set after this is changed.
+	 * @param merge
+	 */
+	public void setMergeTiles(boolean merge) {
+		mergeTiles = merge;
+	}
+
+	public boolean isMergingTiles() {
+		return mergeTiles;
+	}
+
+	/**
+	 * Replaces the level's tiles with the given layer, taking its tile size and grid offset.
+	 * A {@link ChunkedTileGrid} is kept loaded around the activity regions and around every
+	 * dynamic and kinetic body that isn't frozen outside of them, and is closed once it is
+	 * replaced by another layer.
+	 * @param layer
+	 */
+	public void setTiles(TileLayer layer) {
+		if (layer.getTileSize() <= 0) {
+			throw new IllegalArgumentException("Tile size must be positive: " + layer.getTileSize());
+		}
+		clearOutCurrentGrid(layer);
+		dynamicBodies.forEach(BitBody::wake);
+		tileSize = layer.getTileSize();
+		gridOffset = layer.getOffset();
+		rebuildBroadphase();
+		tiles = layer;
+		streamedTiles = layer instanceof ChunkedTileGrid ? (ChunkedTileGrid) layer : null;
+	}
+
+	/**
+	 * @param replacement the layer taking over, which is left open even if it's the current one
+	 */
+	private void clearOutCurrentGrid(TileLayer replacement) {
+		tiles.forEachBuiltTile(contacts::remove);
+		if (streamedTiles != null && streamedTiles != replacement) {
+			// stops its loader thread, nothing reads from it after this
+			streamedTiles.close();
+			streamedTiles = null;
+		}
+	}
+
+	/**
+	 * Loads the chunks of streamed tiles that anything could touch this step. Each body's
+	 * area is grown by how far it can travel this step plus a tile, so the chunks it moves
+	 * in to are loaded right away rather than left to the background thread.
+	 */
+	private void streamTiles() {
+		streamAreas.clear();
+		streamAreas.addAll(activityRegions);
+		int reached = addStreamAreas(dynamicBodies, 0);
+		addStreamAreas(kineticBodies, reached);
+		streamedTiles.update(streamAreas, unloadTile);
+	}
+
+	private int addStreamAreas(List<BitBody> bodies, int reached) {
+		boolean frozenOutside = !activityRegions.isEmpty() && inactiveStepInterval == FREEZE;
+		for (int i = 0; i < bodies.size(); i++) {
+			BitBody body = bodies.get(i);
+			if (!(frozenOutside && body.isOutsideActivity())) {
+				if (reached == reachAreas.size()) {
+					reachAreas.add(new BitRectangle(0, 0, 0, 0));
 				}
+				BitRectangle area = reachAreas.get(reached++);
+				int span = body.getStepState().stepSpan;
+				float padX = Math.abs(body.velocity.x) * stepSize * span + tileSize;
+				float padY = Math.abs(body.velocity.y) * stepSize * span + tileSize;
+				area.xy.set(body.aabb.xy.x - padX, body.aabb.xy.y - padY);
+				area.width = body.aabb.width + padX * 2;
+				area.height = body.aabb.height + padY * 2;
+				streamAreas.add(area);
 			}
 		}
+		return reached;
 	}
 
-	private void clearOutCurrentGrid() {
-		for (int x = 0; x < gridObjects.length; x++) {
-			for (int y = 0; y < gridObjects[0].length; y++) {
-				removeFromContacts(gridObjects[x][y]);
-			}
+	/**
+	 * Lets go of tile bodies that no dynamic or kinetic body is near anymore, so bodies
+	 * moving across a large level don't leave every tile they passed built
+	 */
+	private void releaseTiles() {
+		streamAreas.clear();
+		for (BitBody body : dynamicBodies) {
+			streamAreas.add(body.aabb);
 		}
+		for (BitBody body : kineticBodies) {
+			streamAreas.add(body.aabb);
+		}
+		((TileGrid) tiles).releaseTiles(streamAreas, unloadTile);
+	}
+
+	private void unloadTile(TileBody tile) {
+		contacts.remove(tile);
 	}
 
-	public BitBody[][] getGrid() {
-		return gridObjects;
+	/**
+	 * @return the collision layer of the level's tiles
+	 */
+	public TileLayer getGrid() {
+		return tiles;
 	}
 
 	public int getTileSize() {
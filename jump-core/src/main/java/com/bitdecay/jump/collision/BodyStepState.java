@@ -0,0 +1,76 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+
+/**
+ * What a {@link BitWorld} keeps track of for each of its bodies while stepping. Only the
+ * world writes to it. Everything else can read it, and {@link BitBody#wake()} is the one
+ * way to change it from outside the world.
+ */
+public final class BodyStepState {
+    boolean sleeping;
+    float restingTime;
+    boolean outsideActivity;
+    int stepsSinceUpdate;
+    int stepPhase;
+
+    /**
+     * Only ever worked out by the world from the body's step divisor and the activity
+     * regions. Resolutions are divided by it, so it is never zero while the body is stepping.
+     */
+    int stepSpan = 1;
+
+    /**
+     * @return true while the body is asleep. A sleeping body is not moved and does not look
+     * for collisions until it is woken up.
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    /**
+     * @return how long the body has been resting. Used by the world to decide when to put it to sleep.
+     */
+    public float getRestingTime() {
+        return restingTime;
+    }
+
+    /**
+     * Wakes the body up. Use {@link BitBody#wake()} rather than calling this directly.
+     */
+    public void wake() {
+        sleeping = false;
+        restingTime = 0;
+    }
+
+    /**
+     * @return true while the body is outside all of the world's activity regions
+     */
+    public boolean isOutsideActivity() {
+        return outsideActivity;
+    }
+
+    /**
+     * @return how many internal steps have gone by since the body was last updated. The next
+     * update covers these as well as its own step.
+     */
+    public int getStepsSinceUpdate() {
+        return stepsSinceUpdate;
+    }
+
+    /**
+     * @return the phase given to the body when it was added, which spreads out which steps
+     * bodies updated at a reduced rate are updated on
+     */
+    public int getStepPhase() {
+        return stepPhase;
+    }
+
+    /**
+     * @return how many internal steps the body's current update covers. Bodies updated at a
+     * reduced rate cover several steps at once, and sit out the steps in between with a span of zero.
+     */
+    public int getStepSpan() {
+        return stepSpan;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.geom.BitPointInt;
+
+/**
+ * Tracks where bodies live in the world so that collision candidates can be
+ * found without testing every body against every other body. Bodies are added
+ * once and then kept up to date as they move, so a broadphase only has to do
+ * work for bodies that actually changed position.
+ */
+public interface Broadphase {
+    /**
+     * Sets the cell size and grid offset the broadphase should use when bucketing bodies.
+     * This empties the broadphase; all bodies need to be added again afterwards.
+     * @param tileSize the size of a single level tile
+     * @param gridOffset the offset of the level grid from the origin, in tiles
+     */
+    void configure(int tileSize, BitPointInt gridOffset);
+
+    /**
+     * Removes every body from the broadphase.
+     */
+    void clear();
+
+    /**
+     * Starts tracking the body at the space covered by its current aabb.
+     * @param body the body to add
+     */
+    void add(BitBody body);
+
+    /**
+     * Refreshes the space the body occupies after it has moved. Bodies that are
+     * not being tracked are ignored.
+     * @param body the body that moved
+     */
+    void update(BitBody body);
+
+    /**
+     * Stops tracking the body.
+     * @param body the body to remove
+     */
+    void remove(BitBody body);
+
+    /**
+     * Finishes any bookkeeping left over from updates. After this, and until the next
+     * add, update or remove, {@link #query(BitBody, BroadphaseCallback)} may be called
+     * from several threads at once.
+     */
+    default void prepareQueries() {
+    }
+
+    /**
+     * Reports every active body that shares space with the given body. A candidate may
+     * be reported more than once, but the body itself will never be reported.
+     * @param body the body looking for candidates
+     * @param callback notified of each candidate
+     */
+    void query(BitBody body, BroadphaseCallback callback);
+}
@@ -0,0 +1,10 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+
+/**
+ * Receives candidate pairs found by a {@link Broadphase} query.
+ */
+public interface BroadphaseCallback {
+    void candidate(BitBody body, BitBody other);
+}
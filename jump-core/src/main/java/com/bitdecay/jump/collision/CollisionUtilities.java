@@ -2,6 +2,7 @@ package com.bitdecay.jump.collision;
 
 import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitRectangle;
 import com.bitdecay.jump.geom.GeomUtils;
 import com.bitdecay.jump.geom.MathUtils;
 import com.bitdecay.jump.level.Direction;
@@ -11,12 +12,35 @@ import com.bitdecay.jump.level.TileBody;
  * Created by Monday on 6/16/2016.
  */
 public class CollisionUtilities {
+    /**
+     * Checks the collision category and mask of both bodies
+     * @return true if the bodies are allowed to be paired up for collision
+     */
+    public static boolean canCollide(BitBody body, BitBody otherBody) {
+        return (body.props.collisionCategory & otherBody.props.collisionMask) != 0
+                && (otherBody.props.collisionCategory & body.props.collisionMask) != 0;
+    }
+
     public static BitPoint getRelativeMovement(BitBody body, BitBody otherBody, BitPoint cumulativeResolution) {
+        return getRelativeMovement(body, otherBody, cumulativeResolution, new BitPoint());
+    }
+
+    /**
+     * Same as {@link #getRelativeMovement(BitBody, BitBody, BitPoint)}, but writes the movement into out
+     * @return the provided point
+     */
+    public static BitPoint getRelativeMovement(BitBody body, BitBody otherBody, BitPoint cumulativeResolution, BitPoint out) {
         // this line is just taking where the body tried to move and the partially resolved position into account to
         // figure out the relative momentum.
-        BitPoint bodyAttempt = body.resolutionLocked ? new BitPoint(0, 0) : body.currentAttempt;
-        BitPoint otherBodyAttempt = otherBody.resolutionLocked ? new BitPoint(0, 0) : otherBody.currentAttempt;
-        return bodyAttempt.plus(cumulativeResolution).minus(otherBodyAttempt);
+        if (body.resolutionLocked) {
+            out.set(cumulativeResolution);
+        } else {
+            out.set(body.currentAttempt.x + cumulativeResolution.x, body.currentAttempt.y + cumulativeResolution.y);
+        }
+        if (!otherBody.resolutionLocked) {
+            out.set(out.x - otherBody.currentAttempt.x, out.y - otherBody.currentAttempt.y);
+        }
+        return out;
     }
 
     public static boolean isTileValidCollision(TileBody otherBody, Manifold manifold, float resolutionPosition, float lastPosition) {
@@ -43,7 +67,7 @@ public class CollisionUtilities {
                 if (manifold.distance < 0) {
                     return true;
                 }
-            } else if (manifold.axis.equals(otherBody.collisionAxis.scale(-1))) {
+            } else if (manifold.axis.x == -otherBody.collisionAxis.x && manifold.axis.y == -otherBody.collisionAxis.y) {
                 if (manifold.distance > 0) {
                     return true;
                 }
@@ -71,15 +95,25 @@ public class CollisionUtilities {
     public static Manifold solve(ManifoldBundle bundle, BitBody body, BitBody otherBody, BitPoint cumulativeResolution) {
         bundle.getCandidates().sort((o1, o2) -> Float.compare(Math.abs(o1.distance), Math.abs(o2.distance)));
 
-        BitPoint relativeMovement = CollisionUtilities.getRelativeMovement(body, otherBody, cumulativeResolution);
+        float relX = cumulativeResolution.x;
+        float relY = cumulativeResolution.y;
+        if (!body.resolutionLocked) {
+            relX = body.currentAttempt.x + relX;
+            relY = body.currentAttempt.y + relY;
+        }
+        if (!otherBody.resolutionLocked) {
+            relX -= otherBody.currentAttempt.x;
+            relY -= otherBody.currentAttempt.y;
+        }
 
         float dotProd;
         for (Manifold manifold : bundle.getCandidates()) {
-            dotProd = relativeMovement.dot(manifold.axis);
+            dotProd = relX * manifold.axis.x + relY * manifold.axis.y;
             if (dotProd != 0 && !MathUtils.sameSign(dotProd, manifold.distance)) {
                 if (otherBody instanceof TileBody) {
                     // confirm that body came from past this thing
-                    float resolutionPosition = body.aabb.xy.plus(cumulativeResolution).plus(manifold.result).dot(manifold.axis);
+                    float resolutionPosition = (body.aabb.xy.x + cumulativeResolution.x + manifold.result.x) * manifold.axis.x +
+                            (body.aabb.xy.y + cumulativeResolution.y + manifold.result.y) * manifold.axis.y;
                     float lastPosition = body.lastPosition.dot(manifold.axis);
 
                     if (CollisionUtilities.isTileValidCollision((TileBody) otherBody, manifold, resolutionPosition, lastPosition)) {
@@ -111,11 +145,113 @@ public class CollisionUtilities {
     }
 
     public static Manifold getSolutionCandidate(BitBody body, BitBody against, BitPoint cumulativeResolution) {
-        ManifoldBundle bundle = ProjectionUtilities.getBundle(body.aabb.copyOf().translate(cumulativeResolution), against.aabb);
-        if (bundle == null) {
-            return GeomUtils.ZERO_MANIFOLD;
+        return getSolutionCandidate(body, against, cumulativeResolution, new Manifold());
+    }
+
+    /**
+     * Same as {@link #getSolutionCandidate(BitBody, BitBody, BitPoint)}, but writes the solution into
+     * the provided manifold rather than creating new objects. Two non-empty rectangles (by far the most
+     * common case) are solved directly from their bounds; anything else goes through the general
+     * {@link ProjectionUtilities} path and gets copied into the output.
+     *
+     * @param out the manifold to write the solution into. A solution with a zero axis means no resolution
+     * @return the provided manifold
+     */
+    public static Manifold getSolutionCandidate(BitBody body, BitBody against, BitPoint cumulativeResolution, Manifold out) {
+        BitRectangle rect1 = body.aabb;
+        BitRectangle rect2 = against.aabb;
+        if (rect1.width <= 0 || rect1.height <= 0 || rect2.width <= 0 || rect2.height <= 0) {
+            // degenerate rectangles don't produce both axes, so let the general case handle them
+            ManifoldBundle bundle = ProjectionUtilities.getBundle(rect1.copyOf().translate(cumulativeResolution), rect2);
+            if (bundle == null) {
+                return out.set(GeomUtils.ZERO_MANIFOLD);
+            } else {
+                return out.set(solve(bundle, body, against, cumulativeResolution));
+            }
+        }
+
+        float x1 = rect1.xy.x + cumulativeResolution.x;
+        float y1 = rect1.xy.y + cumulativeResolution.y;
+        float overlapX = getOverlap(x1, x1 + rect1.width, rect2.xy.x, rect2.xy.x + rect2.width);
+        if (overlapX == 0) {
+            return out.set(0, 0, 0);
+        }
+        float overlapY = getOverlap(y1, y1 + rect1.height, rect2.xy.y, rect2.xy.y + rect2.height);
+        if (overlapY == 0) {
+            return out.set(0, 0, 0);
+        }
+
+        float relX;
+        float relY;
+        if (body.resolutionLocked) {
+            relX = cumulativeResolution.x;
+            relY = cumulativeResolution.y;
+        } else {
+            relX = body.currentAttempt.x + cumulativeResolution.x;
+            relY = body.currentAttempt.y + cumulativeResolution.y;
+        }
+        if (!against.resolutionLocked) {
+            relX -= against.currentAttempt.x;
+            relY -= against.currentAttempt.y;
+        }
+
+        // same order as the general case: smallest overlap first, vertical first on a tie
+        boolean xFirst = Math.abs(overlapX) < Math.abs(overlapY);
+        if (xFirst) {
+            if (tryAxis(body, against, cumulativeResolution, 1, 0, overlapX, relX, relY, out) ||
+                    tryAxis(body, against, cumulativeResolution, 0, 1, overlapY, relX, relY, out)) {
+                return out;
+            }
         } else {
-            return solve(bundle, body, against, cumulativeResolution);
+            if (tryAxis(body, against, cumulativeResolution, 0, 1, overlapY, relX, relY, out) ||
+                    tryAxis(body, against, cumulativeResolution, 1, 0, overlapX, relX, relY, out)) {
+                return out;
+            }
+        }
+        return out.set(0, 0, 0);
+    }
+
+    /**
+     * Primitive version of {@link ProjectionUtilities#getLinearOverlap(BitPoint, BitPoint)}
+     * @return the signed overlap, or zero if the two ranges do not overlap
+     */
+    private static float getOverlap(float start1, float end1, float start2, float end2) {
+        float overlap = Math.min(end1, end2) - Math.max(start1, start2);
+        if (!(overlap > 0)) {
+            return 0;
+        }
+        if (Math.abs(start2 - end1) < Math.abs(start1 - end2)) {
+            // resolve left
+            overlap *= -1;
+        }
+        return overlap;
+    }
+
+    /**
+     * Checks a single candidate the same way {@link #solve(ManifoldBundle, BitBody, BitBody, BitPoint)} does.
+     * The candidate is written into the output manifold whether or not it is accepted.
+     * @return true if the candidate is a valid resolution
+     */
+    private static boolean tryAxis(BitBody body, BitBody against, BitPoint cumulativeResolution, float axisX, float axisY, float distance, float relX, float relY, Manifold out) {
+        if (distance < 0) {
+            axisX *= -1;
+            axisY *= -1;
+            distance *= -1;
+        }
+        float dotProd = relX * axisX + relY * axisY;
+        if (dotProd == 0 || MathUtils.sameSign(dotProd, distance)) {
+            return false;
+        }
+        out.set(axisX, axisY, distance);
+        if (against instanceof TileBody) {
+            // confirm that body came from past this thing
+            float resolutionPosition = (body.aabb.xy.x + cumulativeResolution.x + out.result.x) * axisX +
+                    (body.aabb.xy.y + cumulativeResolution.y + out.result.y) * axisY;
+            float lastPosition = body.lastPosition.dot(axisX, axisY);
+            if (isTileValidCollision((TileBody) against, out, resolutionPosition, lastPosition)) {
+                return false;
+            }
         }
+        return true;
     }
 }
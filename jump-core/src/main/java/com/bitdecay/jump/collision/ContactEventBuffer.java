@@ -0,0 +1,107 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects contact events as a world steps so they can be handed to listeners all at
+ * once, on the thread that called {@link BitWorld#step(float)}. Events are stored as
+ * contact ids from a {@link ContactManager} rather than as objects.<br>
+ * <br>
+ * When coalescing, a pair of bodies only records one {@link #CONTINUED} event until the
+ * buffer is dispatched, no matter how many sub-steps they stayed in contact for.
+ */
+class ContactEventBuffer {
+    static final byte STARTED = 0;
+    static final byte CONTINUED = 1;
+    static final byte ENDED = 2;
+    static final byte CRUSHED = 3;
+
+    private int[] bodyIds = new int[64];
+    private int[] otherIds = new int[64];
+    private byte[] kinds = new byte[64];
+    private int count;
+
+    private boolean coalesceContinued;
+    private final LongHashSet continued = new LongHashSet();
+
+    void setCoalesceContinued(boolean coalesceContinued) {
+        this.coalesceContinued = coalesceContinued;
+    }
+
+    boolean isCoalescingContinued() {
+        return coalesceContinued;
+    }
+
+    void add(int bodyId, int otherId, byte kind) {
+        if (kind == CONTINUED && coalesceContinued && !continued.add(ContactManager.pack(bodyId, otherId))) {
+            return;
+        }
+        if (count == kinds.length) {
+            bodyIds = Arrays.copyOf(bodyIds, count * 2);
+            otherIds = Arrays.copyOf(otherIds, count * 2);
+            kinds = Arrays.copyOf(kinds, count * 2);
+        }
+        bodyIds[count] = bodyId;
+        otherIds[count] = otherId;
+        kinds[count] = kind;
+        count++;
+    }
+
+    void addCrushed(int bodyId) {
+        add(bodyId, -1, CRUSHED);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Hands every event to the listeners of the bodies involved, in the order they were
+     * recorded, then empties the buffer. Contacts are reported from the perspective of the
+     * resolved body, so the other body is only told about it if it isn't dynamic.
+     */
+    void dispatch(ContactManager contacts) {
+        try {
+            for (int i = 0; i < count; i++) {
+                BitBody body = contacts.getBody(bodyIds[i]);
+                if (kinds[i] == CRUSHED) {
+                    List<ContactListener> listeners = body.getContactListeners();
+                    for (int l = 0; l < listeners.size(); l++) {
+                        listeners.get(l).crushed();
+                    }
+                    continue;
+                }
+                BitBody other = contacts.getBody(otherIds[i]);
+                fire(body, other, kinds[i]);
+                if (!BodyType.DYNAMIC.equals(other.bodyType)) {
+                    fire(other, body, kinds[i]);
+                }
+            }
+        } finally {
+            count = 0;
+            continued.clear();
+        }
+    }
+
+    private static void fire(BitBody body, BitBody other, byte kind) {
+        List<ContactListener> listeners = body.getContactListeners();
+        for (int i = 0; i < listeners.size(); i++) {
+            ContactListener listener = listeners.get(i);
+            switch (kind) {
+                case STARTED:
+                    listener.contactStarted(other);
+                    break;
+                case CONTINUED:
+                    listener.contact(other);
+                    break;
+                default:
+                    listener.contactEnded(other);
+                    break;
+            }
+        }
+    }
+}
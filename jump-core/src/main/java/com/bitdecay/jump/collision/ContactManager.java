@@ -0,0 +1,280 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Tracks which bodies are touching from one step to the next. Every body in a contact
+ * gets a small integer id the first time it touches something, so bodies that never
+ * touch anything (like most tiles) cost nothing. A contact is stored as a pair of ids
+ * packed in to a long, from the perspective of the body that was resolved.<br>
+ * <br>
+ * Contacts touching at the end of the last step are kept as they were. During a step
+ * contacts are dropped from, and added to, a copy of those. Comparing the two at the
+ * end of the step tells which contacts started, continued and ended.
+ */
+class ContactManager {
+
+    private LongHashSet last = new LongHashSet();
+    private LongHashSet current = new LongHashSet();
+
+    private BitBody[] bodies = new BitBody[16];
+    private int nextId;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    /**
+     * Ids of removed bodies. These are held on to until {@link #releaseRemoved()} so
+     * events that are still waiting to be dispatched can find the body.
+     */
+    private int[] removedIds = new int[16];
+    private int removedCount;
+
+    /**
+     * Contacts of removed bodies are dropped all at once, the next time the contacts are
+     * needed, so removing many bodies only goes over the contacts once. Removed ids from
+     * this index on still have contacts to drop, and are flagged in dropping.
+     */
+    private int droppedCount;
+    private boolean[] dropping = new boolean[16];
+    private final LongPredicate touchesDropping = pair -> dropping[bodyId(pair)] || dropping[otherId(pair)];
+
+    /**
+     * Open addressing identity map of body to id. Tiles come and go with the grid, so
+     * this supports removal.
+     */
+    private BitBody[] idKeys = new BitBody[32];
+    private int[] idValues = new int[32];
+    private int idCount;
+
+    /**
+     * Starts tracking a new step with every contact from the last step
+     */
+    void beginStep() {
+        dropRemovedContacts();
+        current.copy(last);
+    }
+
+    /**
+     * Drops any contact from the last step whose bodies are no longer overlapping.
+     * Only contacts of bodies being updated this step are checked. This should be called once per step,
+     * after bodies have moved and before they are resolved, as resolution leaves bodies
+     * resting flush against what they hit.
+     */
+    void updateExisting() {
+        for (int i = 0; i < last.capacity(); i++) {
+            long pair = last.keyAt(i);
+            if (pair == LongHashSet.EMPTY || !current.contains(pair)) {
+                continue;
+            }
+            BitBody body = bodies[bodyId(pair)];
+            if (BitWorld.isStepping(body) && !ProjectionUtilities.isOverlapping(body.aabb, bodies[otherId(pair)].aabb)) {
+                current.remove(pair);
+            }
+        }
+    }
+
+    /**
+     * Records that body touched other during this step
+     */
+    void flagContact(BitBody body, BitBody other) {
+        current.add(pack(idFor(body), idFor(other)));
+    }
+
+    /**
+     * Adds an event to the buffer for every contact that ended, continued or started
+     * during this step, in that order
+     */
+    void recordEvents(ContactEventBuffer events) {
+        dropRemovedContacts();
+        recordMissing(last, current, ContactEventBuffer.ENDED, events);
+        for (int i = 0; i < last.capacity(); i++) {
+            long pair = last.keyAt(i);
+            if (pair != LongHashSet.EMPTY && current.contains(pair)) {
+                events.add(bodyId(pair), otherId(pair), ContactEventBuffer.CONTINUED);
+            }
+        }
+        recordMissing(current, last, ContactEventBuffer.STARTED, events);
+    }
+
+    /**
+     * Makes the contacts of this step the ones the next step starts from
+     */
+    void endStep() {
+        LongHashSet swap = last;
+        last = current;
+        current = swap;
+        current.clear();
+    }
+
+    /**
+     * Forgets the body and every contact it is part of. No events are recorded for them.
+     * The id of the body is not reused until {@link #releaseRemoved()} is called.
+     */
+    void remove(BitBody body) {
+        int slot = findSlot(body);
+        if (idKeys[slot] == null) {
+            return;
+        }
+        int id = idValues[slot];
+        removeSlot(slot);
+        dropping[id] = true;
+        if (removedCount == removedIds.length) {
+            removedIds = Arrays.copyOf(removedIds, removedCount * 2);
+        }
+        removedIds[removedCount++] = id;
+    }
+
+    /**
+     * Frees up the ids of every body removed since the last call. Only call this once no
+     * buffered events can refer to them anymore.
+     */
+    void releaseRemoved() {
+        dropRemovedContacts();
+        for (int i = 0; i < removedCount; i++) {
+            bodies[removedIds[i]] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = removedIds[i];
+        }
+        removedCount = 0;
+        droppedCount = 0;
+    }
+
+    /**
+     * Drops every contact of the bodies removed since this was last called, going over
+     * each set of contacts once no matter how many bodies were removed
+     */
+    private void dropRemovedContacts() {
+        if (droppedCount == removedCount) {
+            return;
+        }
+        if (last.size() > 0) {
+            last.removeIf(touchesDropping);
+        }
+        if (current.size() > 0) {
+            current.removeIf(touchesDropping);
+        }
+        for (int i = droppedCount; i < removedCount; i++) {
+            dropping[removedIds[i]] = false;
+        }
+        droppedCount = removedCount;
+    }
+
+    /**
+     * @return the id of the body, or -1 if it has never been in a contact
+     */
+    int idOf(BitBody body) {
+        int slot = findSlot(body);
+        return idKeys[slot] == null ? -1 : idValues[slot];
+    }
+
+    BitBody getBody(int id) {
+        return bodies[id];
+    }
+
+    /**
+     * @return how many bodies currently have an id
+     */
+    int trackedBodies() {
+        return idCount;
+    }
+
+    /**
+     * @return how many contacts were touching at the end of the last step
+     */
+    int contactCount() {
+        dropRemovedContacts();
+        return last.size();
+    }
+
+    static long pack(int bodyId, int otherId) {
+        return ((long) bodyId << 32) | (otherId & 0xFFFFFFFFL);
+    }
+
+    static int bodyId(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int otherId(long pair) {
+        return (int) pair;
+    }
+
+    private void recordMissing(LongHashSet from, LongHashSet missingFrom, byte kind, ContactEventBuffer events) {
+        for (int i = 0; i < from.capacity(); i++) {
+            long pair = from.keyAt(i);
+            if (pair != LongHashSet.EMPTY && !missingFrom.contains(pair)) {
+                events.add(bodyId(pair), otherId(pair), kind);
+            }
+        }
+    }
+
+    /**
+     * @return the id of the body, giving it one if it doesn't have one yet
+     */
+    int idFor(BitBody body) {
+        int slot = findSlot(body);
+        if (idKeys[slot] != null) {
+            return idValues[slot];
+        }
+
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == bodies.length) {
+                bodies = Arrays.copyOf(bodies, id * 2);
+                dropping = Arrays.copyOf(dropping, bodies.length);
+            }
+        }
+        bodies[id] = body;
+        idKeys[slot] = body;
+        idValues[slot] = id;
+        if (++idCount * 2 > idKeys.length) {
+            growIds();
+        }
+        return id;
+    }
+
+    private int findSlot(BitBody body) {
+        int mask = idKeys.length - 1;
+        int slot = System.identityHashCode(body) & mask;
+        while (idKeys[slot] != null && idKeys[slot] != body) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        int mask = idKeys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; idKeys[next] != null; next = (next + 1) & mask) {
+            int home = System.identityHashCode(idKeys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                idKeys[gap] = idKeys[next];
+                idValues[gap] = idValues[next];
+                gap = next;
+            }
+        }
+        idKeys[gap] = null;
+        idCount--;
+    }
+
+    private void growIds() {
+        BitBody[] oldKeys = idKeys;
+        int[] oldValues = idValues;
+        idKeys = new BitBody[oldKeys.length * 2];
+        idValues = new int[idKeys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                idKeys[slot] = oldKeys[i];
+                idValues[slot] = oldValues[i];
+            }
+        }
+    }
+}
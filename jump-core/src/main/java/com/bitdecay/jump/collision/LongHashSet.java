@@ -0,0 +1,164 @@
+package com.bitdecay.jump.collision;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Open addressing set of longs. Keys are stored as-is so nothing is boxed. {@link #EMPTY}
+ * marks a free slot and can not be added.
+ */
+public class LongHashSet {
+    public static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 4) - 1) << 1;
+        keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        mask = slots - 1;
+    }
+
+    /**
+     * @return true if the key was not already in the set
+     */
+    public boolean add(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the key was in the set
+     */
+    public boolean remove(long key) {
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes every key matching the filter with a single pass over the slots
+     * @return how many keys were removed
+     */
+    public int removeIf(LongPredicate filter) {
+        int removed = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            // removing can shift a later key back in to this slot, so it is checked again
+            while (keys[slot] != EMPTY && filter.test(keys[slot])) {
+                removeSlot(slot);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void removeSlot(int slot) {
+        // shift back anything after it that would no longer be found past the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * Replaces the contents of this set with the contents of other. Keeps its own slots
+     * if they are already larger, so two sets copied back and forth settle on one size.
+     */
+    public void copy(LongHashSet other) {
+        if (keys.length > other.keys.length) {
+            clear();
+            for (long key : other.keys) {
+                if (key != EMPTY) {
+                    add(key);
+                }
+            }
+            return;
+        }
+        if (keys.length < other.keys.length) {
+            keys = new long[other.keys.length];
+            mask = other.mask;
+        }
+        System.arraycopy(other.keys, 0, keys, 0, keys.length);
+        size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of slots to walk with {@link #keyAt(int)} to see every key
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return the key in the given slot, or {@link #EMPTY} if there isn't one
+     */
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+}
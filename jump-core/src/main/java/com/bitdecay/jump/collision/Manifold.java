@@ -8,12 +8,39 @@ import com.bitdecay.jump.geom.BitPoint;
  */
 public class Manifold {
     public final BitPoint axis;
-    public final float distance;
+    public float distance;
     public final BitPoint result;
 
+    /**
+     * Creates an empty manifold meant to be filled in with {@link #set(float, float, float)}
+     */
+    public Manifold() {
+        this(0, 0, 0);
+    }
+
     public Manifold(BitPoint axis, float distance) {
-        this.axis = axis;
+        this(axis.x, axis.y, distance);
+    }
+
+    private Manifold(float axisX, float axisY, float distance) {
+        this.axis = new BitPoint(axisX, axisY);
+        this.result = new BitPoint();
+        set(axisX, axisY, distance);
+    }
+
+    /**
+     * Overwrites this manifold in place. Used by callers that keep a manifold around
+     * to avoid allocating one for every collision check.
+     * @return this manifold for chaining
+     */
+    public Manifold set(float axisX, float axisY, float distance) {
+        this.axis.set(axisX, axisY);
         this.distance = distance;
-        this.result = axis.scale(distance);
+        this.result.set(axisX * distance, axisY * distance);
+        return this;
+    }
+
+    public Manifold set(Manifold other) {
+        return set(other.axis.x, other.axis.y, other.distance);
     }
 }
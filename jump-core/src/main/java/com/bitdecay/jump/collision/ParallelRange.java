@@ -0,0 +1,55 @@
+package com.bitdecay.jump.collision;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs work for every index in a range on a fork-join pool by splitting the range
+ * in half until the pieces are small enough. The work for each index must only
+ * touch state belonging to that index.
+ */
+class ParallelRange extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How many pieces to aim for per worker so uneven work still balances out
+     */
+    private static final int PIECES_PER_WORKER = 4;
+
+    private final int start;
+    private final int end;
+    private final int grain;
+    private final IntConsumer work;
+
+    private ParallelRange(int start, int end, int grain, IntConsumer work) {
+        this.start = start;
+        this.end = end;
+        this.grain = grain;
+        this.work = work;
+    }
+
+    /**
+     * Calls work for every index from 0 (inclusive) to count (exclusive) and waits for
+     * all of them to finish.
+     */
+    static void run(ForkJoinPool pool, int count, IntConsumer work) {
+        if (count <= 0) {
+            return;
+        }
+        int grain = Math.max(1, count / (pool.getParallelism() * PIECES_PER_WORKER));
+        pool.invoke(new ParallelRange(0, count, grain, work));
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= grain) {
+            for (int i = start; i < end; i++) {
+                work.accept(i);
+            }
+        } else {
+            int middle = (start + end) >>> 1;
+            invokeAll(new ParallelRange(start, middle, grain, work), new ParallelRange(middle, end, grain, work));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.bitdecay.jump.collision;
 
 import com.bitdecay.jump.annotation.VisibleForTesting;
 import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitRectangle;
 import com.bitdecay.jump.geom.Projectable;
 
 import java.util.HashSet;
@@ -12,6 +13,19 @@ import java.util.Set;
  */
 public class ProjectionUtilities {
 
+    /**
+     * Checks if two shapes intersect. Gives the same answer as checking {@link #getBundle} for null,
+     * but rectangles are compared directly instead of being projected.
+     *
+     * @return true if the shapes overlap by more than just touching edges
+     */
+    public static boolean isOverlapping(Projectable p1, Projectable p2) {
+        if (p1 instanceof BitRectangle && p2 instanceof BitRectangle) {
+            return ((BitRectangle) p1).overlaps((BitRectangle) p2);
+        }
+        return getBundle(p1, p2) != null;
+    }
+
     /**
      * Builds a resolution to move p1 out of p2 if necessary
      *
@@ -0,0 +1,149 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the pending resolutions of a world into islands that can not affect each
+ * other. Two resolutions end up in the same island if their bodies collide with each
+ * other, or with the same non-static body. Static bodies never move during
+ * resolution, so they don't join anything together.<br>
+ * <br>
+ * Within an island, resolutions keep the order they were given in.<br>
+ * <br>
+ * Islands only exist to split resolving across a parallel pool, so a world without a pool
+ * never builds them. Finishing early isn't tracked per island. The world already skips
+ * every body whose resolution couldn't change on the next iteration, which covers a
+ * settled island body by body.
+ */
+class ResolutionIslands {
+
+    static class Island {
+        /**
+         * Resolutions in this island, in the order they should be satisfied
+         */
+        final List<SATStrategy> strategies = new ArrayList<>();
+
+        /**
+         * Filled in as the island is resolved with every body that was moved, locked, unlocked or crushed
+         */
+        final List<BitBody> changedBodies = new ArrayList<>();
+
+        /**
+         * Set once the island is resolved if any body in it was moved
+         */
+        boolean resolved;
+
+        private void clear() {
+            strategies.clear();
+            changedBodies.clear();
+            resolved = false;
+        }
+    }
+
+    private int[] parents = new int[16];
+    private int[] islandForRoot = new int[16];
+
+    /**
+     * Non-static bodies without a resolution of their own, mapped to the first resolution that
+     * collided with them.
+     */
+    private final Map<BitBody, SATStrategy> sharedBodies = new IdentityHashMap<>();
+
+    private final List<Island> islands = new ArrayList<>();
+    private int count;
+
+    /**
+     * Builds the islands for the given resolutions
+     * @param ordered the resolutions in the order they should be satisfied
+     * @param byBody lookup of the resolution belonging to each body
+     */
+    void build(List<SATStrategy> ordered, Map<BitBody, SATStrategy> byBody) {
+        int size = ordered.size();
+        if (parents.length < size) {
+            parents = new int[Math.max(size, parents.length * 2)];
+            islandForRoot = new int[parents.length];
+        }
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            ordered.get(i).islandNode = i;
+        }
+
+        sharedBodies.clear();
+        for (int i = 0; i < size; i++) {
+            SATStrategy strategy = ordered.get(i);
+            for (int c = 0; c < strategy.collisionCount(); c++) {
+                link(strategy, strategy.collisionAt(c).against, byBody);
+            }
+            for (BitBody parent : strategy.body.parents) {
+                link(strategy, parent, byBody);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            islands.get(i).clear();
+        }
+        count = 0;
+        Arrays.fill(islandForRoot, 0, size, -1);
+        for (int i = 0; i < size; i++) {
+            int root = find(i);
+            if (islandForRoot[root] == -1) {
+                if (count == islands.size()) {
+                    islands.add(new Island());
+                }
+                islandForRoot[root] = count++;
+            }
+            islands.get(islandForRoot[root]).strategies.add(ordered.get(i));
+        }
+        sharedBodies.clear();
+    }
+
+    int count() {
+        return count;
+    }
+
+    Island get(int index) {
+        return islands.get(index);
+    }
+
+    private void link(SATStrategy strategy, BitBody other, Map<BitBody, SATStrategy> byBody) {
+        if (BodyType.STATIC.equals(other.bodyType)) {
+            return;
+        }
+        SATStrategy otherStrategy = byBody.get(other);
+        if (otherStrategy == null) {
+            otherStrategy = sharedBodies.putIfAbsent(other, strategy);
+            if (otherStrategy == null) {
+                return;
+            }
+        }
+        union(strategy.islandNode, otherStrategy.islandNode);
+    }
+
+    private int find(int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            // keep the earliest resolution as the root so islands come out in a stable order
+            if (rootA < rootB) {
+                parents[rootB] = rootA;
+            } else {
+                parents[rootA] = rootB;
+            }
+        }
+    }
+}
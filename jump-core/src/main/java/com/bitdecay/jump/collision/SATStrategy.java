@@ -3,12 +3,10 @@ package com.bitdecay.jump.collision;
 import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.BodyType;
 import com.bitdecay.jump.geom.BitPoint;
-import com.bitdecay.jump.geom.BitRectangle;
 import com.bitdecay.jump.geom.GeomUtils;
 import com.bitdecay.jump.geom.MathUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.PriorityQueue;
 
 /**
@@ -16,31 +14,183 @@ import java.util.PriorityQueue;
  */
 public class SATStrategy {
 
+    /**
+     * Collisions to resolve. Add to this with {@link #addCollision(BitCollision)} so the weight stays current.
+     */
     public PriorityQueue<BitCollision> potentialCollisions = new PriorityQueue<>();
 
+    /**
+     * The same collisions, laid out in the order {@link #potentialCollisions} iterates them.
+     * Walking this by index keeps the step from making an iterator for every strategy.
+     */
+    private BitCollision[] collisions = new BitCollision[4];
+    private int collisionCount;
+
+    /**
+     * Sum of the {@link BodyType#order} of everything this strategy collides against
+     */
+    private int weight;
+
     protected BitPoint cumulativeResolution;
     protected BitPoint resolution = new BitPoint(0, 0);
     protected BitBody body;
 
+    /**
+     * Reused for every collision this strategy checks. Only valid until the next call to {@link #getSolution}
+     */
+    private final Manifold solution = new Manifold();
+
+    /**
+     * Open addressing set of every body this strategy collides against, so looking one up
+     * doesn't have to walk all the collisions
+     */
+    private BitBody[] againstSet = new BitBody[8];
+    private int againstCount;
+
+    /**
+     * Directions resolved so far during {@link #satisfy(BitWorld)}, used to spot a body being crushed
+     */
+    private float[] resolvedX = new float[4];
+    private float[] resolvedY = new float[4];
+    private final BitPoint resolvedAxis = new BitPoint();
+
     /**
      * If set to true, {@link BitBody#resolutionLocked} should be flagged as true after this resolution
      */
     public boolean lockingResolution;
 
+    /**
+     * Set if the body was crushed while satisfying this strategy. The world lets the body's
+     * listeners know once the step is done.
+     */
+    boolean crushed;
+
+    /**
+     * Position of this strategy while the world splits resolutions into islands
+     */
+    int islandNode;
+
     public SATStrategy(BitBody body) {
         this.body = body;
         cumulativeResolution = new BitPoint();
     }
 
+    /**
+     * Clears this strategy out so it can be used again for the given body
+     */
+    public void reset(BitBody body) {
+        this.body = body;
+        potentialCollisions.clear();
+        if (collisionCount > 0) {
+            Arrays.fill(collisions, 0, collisionCount, null);
+            collisionCount = 0;
+        }
+        weight = 0;
+        if (againstCount > 0) {
+            Arrays.fill(againstSet, null);
+            againstCount = 0;
+        }
+        cumulativeResolution.set(0, 0);
+        resolution.set(0, 0);
+        lockingResolution = false;
+        crushed = false;
+    }
+
+    public void addCollision(BitCollision collision) {
+        potentialCollisions.add(collision);
+        addOrdered(collision);
+        weight += collision.against.bodyType.order;
+        addAgainst(collision.against);
+    }
+
+    /**
+     * Sifts the collision up the same way {@link PriorityQueue} does, so iterating
+     * {@link #collisions} visits everything in the same order as iterating the queue
+     */
+    private void addOrdered(BitCollision collision) {
+        if (collisionCount == collisions.length) {
+            collisions = Arrays.copyOf(collisions, collisionCount * 2);
+        }
+        int k = collisionCount++;
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            BitCollision existing = collisions[parent];
+            if (collision.compareTo(existing) >= 0) {
+                break;
+            }
+            collisions[k] = existing;
+            k = parent;
+        }
+        collisions[k] = collision;
+    }
+
+    /**
+     * @return how many collisions have been added since the last {@link #reset(BitBody)}
+     */
+    int collisionCount() {
+        return collisionCount;
+    }
+
+    /**
+     * @return the collision at the given index, in the order {@link #potentialCollisions} iterates them
+     */
+    BitCollision collisionAt(int index) {
+        return collisions[index];
+    }
+
+    /**
+     * @return true if a collision against the given body has already been added
+     */
+    public boolean isCollidingWith(BitBody against) {
+        int mask = againstSet.length - 1;
+        for (int i = System.identityHashCode(against) & mask; againstSet[i] != null; i = (i + 1) & mask) {
+            if (againstSet[i] == against) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addAgainst(BitBody against) {
+        if ((againstCount + 1) * 2 > againstSet.length) {
+            BitBody[] old = againstSet;
+            againstSet = new BitBody[old.length * 2];
+            againstCount = 0;
+            for (BitBody existing : old) {
+                if (existing != null) {
+                    addAgainst(existing);
+                }
+            }
+        }
+        int mask = againstSet.length - 1;
+        int i = System.identityHashCode(against) & mask;
+        while (againstSet[i] != null) {
+            if (againstSet[i] == against) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        againstSet[i] = against;
+        againstCount++;
+    }
+
+    /**
+     * @return the sum of the {@link BodyType#order} of every body this strategy collides against.
+     * Strategies with a higher weight are resolved first.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
     /**
      * Determines appropriate resolution for the body based on the potential collisions found. This method will
      * deactivate the body if opposing collisions are found.
      * @param world
      */
     public boolean satisfy(BitWorld world) {
-        // TODO: This method can probably made more efficient if needed down the road
-        List<BitPoint> directionsResolved = new ArrayList<>();
-        for (BitCollision collision : potentialCollisions) {
+        int directionsResolved = 0;
+        for (int c = 0; c < collisionCount; c++) {
+            BitCollision collision = collisions[c];
             Manifold manifold = getSolution(cumulativeResolution, collision);
             if (manifold.axis.equals(GeomUtils.ZERO_AXIS)) {
                 continue;
@@ -61,10 +211,10 @@ public class SATStrategy {
                 this.lockingResolution = true;
             }
             cumulativeResolution.add(manifold.result);
-            BitPoint resAxis = manifold.result.normalize();
-            for (BitPoint otherAxis : directionsResolved) {
+            BitPoint resAxis = manifold.result.normalizeInto(resolvedAxis);
+            for (int i = 0; i < directionsResolved; i++) {
                 // this will only check exact opposites, may need to change if we move away from rectangle tiles
-                if (collision.body.props.crushable && resAxis.scale(-1).equals(otherAxis)) {
+                if (collision.body.props.crushable && resAxis.x * -1 == resolvedX[i] && resAxis.y * -1 == resolvedY[i]) {
                     // reset any pending resolutions.
                     // don't bother moving a dead body
                     // short circuit the resolution
@@ -72,11 +222,17 @@ public class SATStrategy {
                     cumulativeResolution.set(body.aabb.xy);
                     body.active = false;
                     body.velocity.set(0, 0);
-                    body.getContactListeners().forEach(listener -> listener.crushed());
+                    crushed = true;
                     return false;
                 }
             }
-            directionsResolved.add(resAxis);
+            if (directionsResolved == resolvedX.length) {
+                resolvedX = Arrays.copyOf(resolvedX, directionsResolved * 2);
+                resolvedY = Arrays.copyOf(resolvedY, directionsResolved * 2);
+            }
+            resolvedX[directionsResolved] = resAxis.x;
+            resolvedY[directionsResolved] = resAxis.y;
+            directionsResolved++;
             postResolve(world, body, collision.against, manifold);
         }
         // set final resolution values
@@ -91,9 +247,7 @@ public class SATStrategy {
      * @param collisionBundle the collision to take into consideration
      */
     private Manifold getSolution(BitPoint cumulativeResolution, BitCollision collisionBundle) {
-        BitRectangle effectiveSpace = new BitRectangle(collisionBundle.body.aabb);
-        effectiveSpace.xy.add(cumulativeResolution);
-        Manifold candidate = CollisionUtilities.getSolutionCandidate(body, collisionBundle.against, cumulativeResolution); //this effective space is calculated again inside of collision.solve()
+        Manifold candidate = CollisionUtilities.getSolutionCandidate(body, collisionBundle.against, cumulativeResolution, solution);
         if (candidate.axis.x != 0 && candidate.axis.y > 0) {
             // this is logic to make it so the player doesn't move slower when running uphill. Likewise, we will need logic to 'glue' the player to the ground when running downhill.
             // atan is our angle of resolution
@@ -130,7 +284,7 @@ public class SATStrategy {
     private void postResolve(BitWorld world, BitBody body, BitBody otherBody, Manifold manifold) {
         if (BodyType.KINETIC.equals(otherBody.bodyType)) {
             // attach if we were resolved against gravity (aka we are standing on it)
-            if (manifold.axis.dot(world.gravity.x, world.gravity.y) < 0) {
+            if (manifold.axis.dot(world.getGravity().x, world.getGravity().y) < 0) {
                 body.parents.add(otherBody);
                 otherBody.children.add(body);
             }
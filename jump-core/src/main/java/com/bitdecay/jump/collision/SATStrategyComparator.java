@@ -3,7 +3,9 @@ package com.bitdecay.jump.collision;
 /**
  * Compares SATStrategy objects to allow for comparing collision strategies. This class
  * will help to order collisions such that collisions against static objects will be
- * prioritized.
+ * prioritized.<br>
+ * <br>
+ * {@link StrategyOrder} gives the same ordering in linear time and is what the world uses.
  * Created by Monday on 11/18/2015.
  */
 public class SATStrategyComparator implements java.util.Comparator {
@@ -11,15 +13,6 @@ public class SATStrategyComparator implements java.util.Comparator {
     public int compare(Object o1, Object o2) {
         SATStrategy first = (SATStrategy) o1;
         SATStrategy second = (SATStrategy) o2;
-        int firstWeight = 0;
-        int secondWeight = 0;
-
-        for (BitCollision col : first.potentialCollisions) {
-            firstWeight += col.against.bodyType.order;
-        }
-        for (BitCollision col : second.potentialCollisions) {
-            secondWeight += col.against.bodyType.order;
-        }
-        return -1 * Integer.compare(firstWeight, secondWeight);
+        return -1 * Integer.compare(first.getWeight(), second.getWeight());
     }
 }
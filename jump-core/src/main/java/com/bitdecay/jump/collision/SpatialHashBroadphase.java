@@ -0,0 +1,306 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.annotation.VisibleForTesting;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.CellRange;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A uniform grid broadphase keyed on the level's tile size. Cells are stored in an
+ * open-addressing hash table keyed by the cell coordinate packed into a long, so
+ * no boxing happens when filling or querying it.<br>
+ * <br>
+ * Each body remembers the range of cells it was last put in. When a body is
+ * updated, it is only moved between cells if that range has changed, and then only
+ * for the cells it actually entered or left. The body arrays backing each cell are
+ * pooled and reused as cells empty out and fill back up.
+ */
+public class SpatialHashBroadphase implements Broadphase {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int INITIAL_BUCKET_SIZE = 4;
+
+    private int tileSize = 1;
+    private BitPointInt gridOffset = new BitPointInt(0, 0);
+
+    /**
+     * Packed cell coordinates for each slot of the table
+     */
+    private long[] keys;
+
+    /**
+     * The index into {@link #buckets} for each slot, or {@link #EMPTY}
+     */
+    private int[] slotBuckets;
+    private int size;
+
+    private BitBody[][] buckets;
+    private int[] bucketSizes;
+    private int bucketCount;
+
+    /**
+     * Indices of buckets whose cell has emptied out and can be handed to a new cell
+     */
+    private int[] freeBuckets;
+    private int freeCount;
+
+    /**
+     * The cells each tracked body was last placed in
+     */
+    private final Map<BitBody, CellRange> occupied = new IdentityHashMap<>();
+
+    private final CellRange scratchRange = new CellRange();
+
+    /**
+     * Queries may run on several threads at once, so each thread gets its own range
+     */
+    private final ThreadLocal<CellRange> queryRange = ThreadLocal.withInitial(CellRange::new);
+
+    public SpatialHashBroadphase() {
+        allocateTable(INITIAL_CAPACITY);
+        buckets = new BitBody[INITIAL_CAPACITY / 2][];
+        bucketSizes = new int[INITIAL_CAPACITY / 2];
+        freeBuckets = new int[INITIAL_CAPACITY / 2];
+    }
+
+    @Override
+    public void configure(int tileSize, BitPointInt gridOffset) {
+        this.tileSize = tileSize;
+        this.gridOffset = gridOffset;
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < slotBuckets.length; slot++) {
+            if (slotBuckets[slot] != EMPTY) {
+                int bucket = slotBuckets[slot];
+                Arrays.fill(buckets[bucket], 0, bucketSizes[bucket], null);
+                bucketSizes[bucket] = 0;
+                slotBuckets[slot] = EMPTY;
+            }
+        }
+        size = 0;
+        freeCount = 0;
+        bucketCount = 0;
+        occupied.clear();
+    }
+
+    @Override
+    public void add(BitBody body) {
+        if (occupied.containsKey(body)) {
+            update(body);
+            return;
+        }
+        CellRange range = new CellRange().set(body.aabb, tileSize, gridOffset);
+        occupied.put(body, range);
+        for (int x = range.startX; x <= range.endX; x++) {
+            for (int y = range.startY; y <= range.endY; y++) {
+                addToCell(x, y, body);
+            }
+        }
+    }
+
+    @Override
+    public void update(BitBody body) {
+        CellRange last = occupied.get(body);
+        if (last == null) {
+            return;
+        }
+        CellRange current = scratchRange.set(body.aabb, tileSize, gridOffset);
+        if (current.sameCells(last)) {
+            return;
+        }
+
+        for (int x = last.startX; x <= last.endX; x++) {
+            for (int y = last.startY; y <= last.endY; y++) {
+                if (!current.contains(x, y)) {
+                    removeFromCell(x, y, body);
+                }
+            }
+        }
+        for (int x = current.startX; x <= current.endX; x++) {
+            for (int y = current.startY; y <= current.endY; y++) {
+                if (!last.contains(x, y)) {
+                    addToCell(x, y, body);
+                }
+            }
+        }
+        last.set(current);
+    }
+
+    @Override
+    public void remove(BitBody body) {
+        CellRange last = occupied.remove(body);
+        if (last == null) {
+            return;
+        }
+        for (int x = last.startX; x <= last.endX; x++) {
+            for (int y = last.startY; y <= last.endY; y++) {
+                removeFromCell(x, y, body);
+            }
+        }
+    }
+
+    @Override
+    public void query(BitBody body, BroadphaseCallback callback) {
+        CellRange range = queryRange.get().set(body.aabb, tileSize, gridOffset);
+        for (int x = range.startX; x <= range.endX; x++) {
+            for (int y = range.startY; y <= range.endY; y++) {
+                int slot = findSlot(pack(x, y));
+                if (slot == EMPTY) {
+                    continue;
+                }
+                int bucket = slotBuckets[slot];
+                BitBody[] occupants = buckets[bucket];
+                for (int i = 0; i < bucketSizes[bucket]; i++) {
+                    if (occupants[i] != body && occupants[i].active) {
+                        callback.candidate(body, occupants[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int cellCount() {
+        return size;
+    }
+
+    @VisibleForTesting
+    static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private void addToCell(int x, int y, BitBody body) {
+        int bucket = getOrCreateBucket(pack(x, y));
+        if (bucketSizes[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], bucketSizes[bucket] * 2);
+        }
+        buckets[bucket][bucketSizes[bucket]++] = body;
+    }
+
+    private void removeFromCell(int x, int y, BitBody body) {
+        int slot = findSlot(pack(x, y));
+        if (slot == EMPTY) {
+            return;
+        }
+        int bucket = slotBuckets[slot];
+        BitBody[] occupants = buckets[bucket];
+        int count = bucketSizes[bucket];
+        for (int i = 0; i < count; i++) {
+            if (occupants[i] == body) {
+                // keep the remaining occupants in the order they were added
+                System.arraycopy(occupants, i + 1, occupants, i, count - i - 1);
+                occupants[--count] = null;
+                bucketSizes[bucket] = count;
+                break;
+            }
+        }
+        if (count == 0) {
+            freeBuckets[freeCount++] = bucket;
+            deleteSlot(slot);
+        }
+    }
+
+    private int slotFor(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slotFor(key); slotBuckets[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int getOrCreateBucket(long key) {
+        int mask = keys.length - 1;
+        int slot = slotFor(key);
+        while (slotBuckets[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slotBuckets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return getOrCreateBucket(key);
+        }
+
+        int bucket = freeCount > 0 ? freeBuckets[--freeCount] : bucketCount++;
+        if (buckets[bucket] == null) {
+            buckets[bucket] = new BitBody[INITIAL_BUCKET_SIZE];
+        }
+        keys[slot] = key;
+        slotBuckets[slot] = bucket;
+        size++;
+        return bucket;
+    }
+
+    /**
+     * Empties the slot and shifts any later entries of the same probe chain back so
+     * lookups never stop early on the hole left behind.
+     */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        slotBuckets[slot] = EMPTY;
+        size--;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slotBuckets[next] == EMPTY) {
+                return;
+            }
+            int home = slotFor(keys[next]);
+            boolean homeBetween = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!homeBetween) {
+                keys[hole] = keys[next];
+                slotBuckets[hole] = slotBuckets[next];
+                slotBuckets[next] = EMPTY;
+                hole = next;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldSlotBuckets = slotBuckets;
+
+        allocateTable(oldKeys.length * 2);
+        buckets = Arrays.copyOf(buckets, keys.length / 2);
+        bucketSizes = Arrays.copyOf(bucketSizes, keys.length / 2);
+        freeBuckets = Arrays.copyOf(freeBuckets, keys.length / 2);
+
+        int mask = keys.length - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldSlotBuckets[oldSlot] == EMPTY) {
+                continue;
+            }
+            int slot = slotFor(oldKeys[oldSlot]);
+            while (slotBuckets[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            slotBuckets[slot] = oldSlotBuckets[oldSlot];
+            size++;
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        keys = new long[capacity];
+        slotBuckets = new int[capacity];
+        Arrays.fill(slotBuckets, EMPTY);
+        size = 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bitdecay.jump.collision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out objects that only need to live for a single world step. Everything
+ * handed out is taken back at once with {@link #freeAll()}, so callers must not hold
+ * on to anything from the pool past that point.
+ */
+class StepPool<T> {
+    private final Supplier<T> factory;
+    private final List<T> objects = new ArrayList<>();
+    private int used;
+
+    StepPool(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return an object from the pool. It still holds whatever state it was last given.
+     */
+    T obtain() {
+        if (used == objects.size()) {
+            objects.add(factory.get());
+        }
+        return objects.get(used++);
+    }
+
+    void freeAll() {
+        used = 0;
+    }
+
+    int inUse() {
+        return used;
+    }
+
+    int size() {
+        return objects.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bitdecay.jump.collision;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Orders strategies the same way {@link SATStrategyComparator} does, highest weight
+ * first with ties left in the order they were given. Weights are small sums of
+ * {@link com.bitdecay.jump.BodyType#order}, so this buckets strategies by weight
+ * instead of comparing them. All storage is kept between calls.
+ */
+class StrategyOrder {
+    private SATStrategy[] input = new SATStrategy[16];
+    private int[] starts = new int[16];
+
+    /**
+     * Clears out and fills the given list with the strategies in resolution order
+     */
+    void sort(Collection<SATStrategy> strategies, List<SATStrategy> out) {
+        out.clear();
+        int size = strategies.size();
+        if (input.length < size) {
+            input = new SATStrategy[Math.max(size, input.length * 2)];
+        }
+
+        int maxWeight = 0;
+        int i = 0;
+        for (SATStrategy strategy : strategies) {
+            input[i++] = strategy;
+            maxWeight = Math.max(maxWeight, strategy.getWeight());
+        }
+        if (starts.length <= maxWeight) {
+            starts = new int[Math.max(maxWeight + 1, starts.length * 2)];
+        }
+
+        Arrays.fill(starts, 0, maxWeight + 1, 0);
+        for (i = 0; i < size; i++) {
+            starts[input[i].getWeight()]++;
+        }
+        // turn the counts into where each weight starts, heaviest first
+        int position = 0;
+        for (int weight = maxWeight; weight >= 0; weight--) {
+            int count = starts[weight];
+            starts[weight] = position;
+            position += count;
+        }
+
+        for (i = 0; i < size; i++) {
+            out.add(null);
+        }
+        for (i = 0; i < size; i++) {
+            SATStrategy strategy = input[i];
+            out.set(starts[strategy.getWeight()]++, strategy);
+        }
+        Arrays.fill(input, 0, size, null);
+    }
+}
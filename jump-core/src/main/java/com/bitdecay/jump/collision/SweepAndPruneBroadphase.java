@@ -0,0 +1,268 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.geom.BitPointInt;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A broadphase that keeps every body sorted by the left edge of its aabb. Bodies
+ * move very little between steps, so the list is kept in order with an insertion
+ * sort that only does real work for the bodies that actually passed each other.<br>
+ * <br>
+ * This suits wide levels where bodies are clustered in a few areas, or where a few
+ * very large bodies would otherwise fill dozens of grid cells. Those large bodies
+ * are kept in their own sorted list so a single long platform doesn't make every
+ * query scan back across its whole width. Queries are padded by a tile so bodies
+ * that shift slightly while collisions are resolved are still found, similar to how
+ * the grid broadphase reports bodies in neighboring cells.
+ */
+public class SweepAndPruneBroadphase implements Broadphase {
+    /**
+     * Bodies wider than this many tiles are considered 'wide'
+     */
+    private static final int WIDE_TILES = 4;
+
+    private float margin = 1;
+
+    private final SortedAxis narrow = new SortedAxis();
+    private final SortedAxis wide = new SortedAxis();
+
+    private final Map<BitBody, Proxy> proxies = new IdentityHashMap<>();
+
+    private static class Proxy {
+        BitBody body;
+        SortedAxis axis;
+        int index;
+
+        Proxy(BitBody body) {
+            this.body = body;
+        }
+
+        float width() {
+            return body.aabb.width;
+        }
+    }
+
+    /**
+     * A list of proxies sorted by their left edge. Bounds are kept in parallel arrays
+     * next to the proxies so scanning the list doesn't have to chase a pointer for
+     * every body it passes over.
+     */
+    private static class SortedAxis {
+        Proxy[] proxies = new Proxy[64];
+        float[] minXs = new float[64];
+        float[] maxXs = new float[64];
+        float[] minYs = new float[64];
+        float[] maxYs = new float[64];
+        int count;
+
+        /**
+         * The widest proxy in the list. Used to know how far back to look when
+         * searching for proxies that start to the left of a query but reach into it.
+         */
+        float maxWidth;
+
+        /**
+         * Set when a proxy has moved since the last sort
+         */
+        boolean dirty;
+
+        void clear() {
+            Arrays.fill(proxies, 0, count, null);
+            count = 0;
+            maxWidth = 0;
+            dirty = false;
+        }
+
+        void add(Proxy proxy) {
+            if (count == proxies.length) {
+                int size = count * 2;
+                proxies = Arrays.copyOf(proxies, size);
+                minXs = Arrays.copyOf(minXs, size);
+                maxXs = Arrays.copyOf(maxXs, size);
+                minYs = Arrays.copyOf(minYs, size);
+                maxYs = Arrays.copyOf(maxYs, size);
+            }
+            proxy.axis = this;
+            proxy.index = count++;
+            proxies[proxy.index] = proxy;
+            refresh(proxy);
+            dirty = true;
+        }
+
+        /**
+         * Copies the body's current bounds into the list
+         * @return true if the left edge moved
+         */
+        boolean refresh(Proxy proxy) {
+            int i = proxy.index;
+            BitBody body = proxy.body;
+            float lastMin = minXs[i];
+            minXs[i] = body.aabb.xy.x;
+            maxXs[i] = body.aabb.xy.x + body.aabb.width;
+            minYs[i] = body.aabb.xy.y;
+            maxYs[i] = body.aabb.xy.y + body.aabb.height;
+            maxWidth = Math.max(maxWidth, body.aabb.width);
+            return minXs[i] != lastMin;
+        }
+
+        void remove(Proxy proxy) {
+            int i = proxy.index;
+            int trailing = count - i - 1;
+            System.arraycopy(proxies, i + 1, proxies, i, trailing);
+            System.arraycopy(minXs, i + 1, minXs, i, trailing);
+            System.arraycopy(maxXs, i + 1, maxXs, i, trailing);
+            System.arraycopy(minYs, i + 1, minYs, i, trailing);
+            System.arraycopy(maxYs, i + 1, maxYs, i, trailing);
+            proxies[--count] = null;
+            for (; i < count; i++) {
+                proxies[i].index = i;
+            }
+            proxy.axis = null;
+        }
+
+        void prepare() {
+            if (dirty) {
+                sort();
+            }
+        }
+
+        void query(BitBody body, float minX, float minY, float maxX, float maxY, BroadphaseCallback callback) {
+            prepare();
+            // nothing that starts before this can reach into the query
+            for (int i = firstIndexAtOrAfter(minX - maxWidth); i < count; i++) {
+                if (minXs[i] > maxX) {
+                    break;
+                }
+                if (maxXs[i] >= minX && minYs[i] <= maxY && maxYs[i] >= minY) {
+                    BitBody other = proxies[i].body;
+                    if (other != body && other.active) {
+                        callback.candidate(body, other);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Insertion sort on the left edge. Cheap when proxies are already nearly in order,
+         * which they are from one step to the next.
+         */
+        private void sort() {
+            maxWidth = 0;
+            for (int i = 0; i < count; i++) {
+                maxWidth = Math.max(maxWidth, maxXs[i] - minXs[i]);
+                if (i == 0 || minXs[i - 1] <= minXs[i]) {
+                    continue;
+                }
+                Proxy proxy = proxies[i];
+                float minX = minXs[i];
+                float maxX = maxXs[i];
+                float minY = minYs[i];
+                float maxY = maxYs[i];
+                int j = i - 1;
+                while (j >= 0 && minXs[j] > minX) {
+                    proxies[j + 1] = proxies[j];
+                    proxies[j + 1].index = j + 1;
+                    minXs[j + 1] = minXs[j];
+                    maxXs[j + 1] = maxXs[j];
+                    minYs[j + 1] = minYs[j];
+                    maxYs[j + 1] = maxYs[j];
+                    j--;
+                }
+                proxies[j + 1] = proxy;
+                proxy.index = j + 1;
+                minXs[j + 1] = minX;
+                maxXs[j + 1] = maxX;
+                minYs[j + 1] = minY;
+                maxYs[j + 1] = maxY;
+            }
+            dirty = false;
+        }
+
+        private int firstIndexAtOrAfter(float x) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minXs[mid] < x) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    @Override
+    public void configure(int tileSize, BitPointInt gridOffset) {
+        margin = tileSize;
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        narrow.clear();
+        wide.clear();
+        proxies.clear();
+    }
+
+    @Override
+    public void add(BitBody body) {
+        if (proxies.containsKey(body)) {
+            update(body);
+            return;
+        }
+        Proxy proxy = new Proxy(body);
+        proxies.put(body, proxy);
+        axisFor(proxy).add(proxy);
+    }
+
+    @Override
+    public void update(BitBody body) {
+        Proxy proxy = proxies.get(body);
+        if (proxy == null) {
+            return;
+        }
+        SortedAxis axis = axisFor(proxy);
+        if (axis != proxy.axis) {
+            // it changed size enough to belong in the other list
+            proxy.axis.remove(proxy);
+            axis.add(proxy);
+        } else if (axis.refresh(proxy)) {
+            axis.dirty = true;
+        }
+    }
+
+    @Override
+    public void remove(BitBody body) {
+        Proxy proxy = proxies.remove(body);
+        if (proxy != null) {
+            proxy.axis.remove(proxy);
+        }
+    }
+
+    @Override
+    public void prepareQueries() {
+        narrow.prepare();
+        wide.prepare();
+    }
+
+    @Override
+    public void query(BitBody body, BroadphaseCallback callback) {
+        float minX = body.aabb.xy.x - margin;
+        float maxX = body.aabb.xy.x + body.aabb.width + margin;
+        float minY = body.aabb.xy.y - margin;
+        float maxY = body.aabb.xy.y + body.aabb.height + margin;
+
+        narrow.query(body, minX, minY, maxX, maxY, callback);
+        wide.query(body, minX, minY, maxX, maxY, callback);
+    }
+
+    private SortedAxis axisFor(Proxy proxy) {
+        return proxy.width() > WIDE_TILES * margin ? wide : narrow;
+    }
+}
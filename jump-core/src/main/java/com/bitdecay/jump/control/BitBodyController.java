@@ -1,8 +1,23 @@
 package com.bitdecay.jump.control;
 
 import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.collision.BitWorld;
 
 public interface BitBodyController {
-	void update(float delta, BitBody body);
+	/**
+	 * @param delta the time covered by this update
+	 * @param body the body being controlled
+	 * @param world the world the body is in, for gravity and any other world settings
+	 */
+	void update(float delta, BitBody body, BitWorld world);
 	String getStatus();
+
+	/**
+	 * Lets the world know the controller won't move its body until something else
+	 * does. Bodies are only put to sleep if their controller is idle.
+	 * @return true if the body may be put to sleep
+	 */
+	default boolean isIdle() {
+		return false;
+	}
 }
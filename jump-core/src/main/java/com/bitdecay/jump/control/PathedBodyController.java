@@ -22,6 +22,12 @@ public class PathedBodyController implements BitBodyController {
     boolean forward;
     PathPoint targetPoint;
 
+    /**
+     * Scratch points reused every update so moving along the path doesn't create garbage
+     */
+    private final BitPoint distanceToDestination = new BitPoint();
+    private final BitPoint nextLeg = new BitPoint();
+
     public PathedBodyController(List<PathPoint> path, boolean pendulum) {
         this.path = path;
         this.pendulum = pendulum;
@@ -31,7 +37,7 @@ public class PathedBodyController implements BitBodyController {
     }
 
     @Override
-    public void update(float delta, BitBody body) {
+    public void update(float delta, BitBody body, BitWorld world) {
         if (pause > 0) {
             body.velocity.set(0, 0);
             pause -= delta;
@@ -40,7 +46,7 @@ public class PathedBodyController implements BitBodyController {
             if (targetPoint == null) {
                 targetPoint = pickNextPathPoint(true);
             }
-            BitPoint distanceToDestination = targetPoint.destination.minus(body.aabb.xy);
+            distanceToDestination.set(targetPoint.destination.x - body.aabb.xy.x, targetPoint.destination.y - body.aabb.xy.y);
             float distanceToGo = Math.abs(distanceToDestination.len());
             float travelThisFrame = targetPoint.speed * delta;
             if (distanceToGo < travelThisFrame) {
@@ -53,20 +59,21 @@ public class PathedBodyController implements BitBodyController {
                      * we have to adjust the velocity based on the delta to make sure we move the right distance
                      * next update.
                      */
-                    BitPoint velToReachPoint = distanceToDestination.scale(BitWorld.STEP_PER_SEC);
-                    body.velocity.set(velToReachPoint);
+                    distanceToDestination.scaleInto(1 / delta, body.velocity);
                     pause = targetPoint.stayTime - delta * extraPercent;
                 } else {
                     PathPoint nextPoint = pickNextPathPoint(false);
                     float additionalTravel = nextPoint.speed * delta * extraPercent;
-                    BitPoint trueMovement = distanceToDestination.plus(nextPoint.destination.minus(targetPoint.destination).normalize().scale(additionalTravel));
-                    body.velocity.set(trueMovement.scale(BitWorld.STEP_PER_SEC));
+                    nextLeg.set(nextPoint.destination.x - targetPoint.destination.x, nextPoint.destination.y - targetPoint.destination.y);
+                    nextLeg.normalizeInto(nextLeg).scaleInto(additionalTravel, nextLeg);
+                    // the distance still to go plus how far we got along the next leg
+                    nextLeg.set(distanceToDestination.x + nextLeg.x, distanceToDestination.y + nextLeg.y);
+                    nextLeg.scaleInto(1 / delta, body.velocity);
                 }
 
                 targetPoint = null;
             } else {
-                BitPoint movement = distanceToDestination.normalize().scale(targetPoint.speed);
-                body.velocity.set(movement);
+                distanceToDestination.normalizeInto(nextLeg).scaleInto(targetPoint.speed, body.velocity);
                 extraPercent = 0;
             }
         }
@@ -2,6 +2,7 @@ package com.bitdecay.jump.control;
 
 import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.JumperBody;
+import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.state.FallingControlState;
 import com.bitdecay.jump.control.state.GroundedControlState;
 import com.bitdecay.jump.control.state.JumperBodyControlState;
@@ -14,9 +15,9 @@ public class PlayerInputController implements BitBodyController {
         this.controls = controls;
     }
 
-    public void update(float delta, BitBody body) {
+    public void update(float delta, BitBody body, BitWorld world) {
         if (body instanceof JumperBody) {
-            JumperBodyControlState newState = state.update(delta, (JumperBody) body, controls);
+            JumperBodyControlState newState = state.update(delta, (JumperBody) body, controls, world);
             if (newState != state) {
                 state.stateExited((JumperBody) body, controls);
                 newState.stateEntered((JumperBody) body, controls);
@@ -25,12 +25,12 @@ public class FallingControlState extends SidewaysControlState {
     }
 
     @Override
-    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls) {
+    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls, BitWorld world) {
         if (!controls.isPressed(PlayerAction.JUMP)) {
             waitingForRelease = false;
         }
 
-        if (body.jumperProps.wallSlideEnabled && BitWorld.gravity.dot(body.currentAttempt) > 0 && body.lastResolution.x != 0) {
+        if (body.jumperProps.wallSlideEnabled && world.getGravity().dot(body.currentAttempt) > 0 && body.lastResolution.x != 0) {
             return new WallSlideState();
         }
 
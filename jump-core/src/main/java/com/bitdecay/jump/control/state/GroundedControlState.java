@@ -1,6 +1,7 @@
 package com.bitdecay.jump.control.state;
 
 import com.bitdecay.jump.JumperBody;
+import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.ControlMap;
 import com.bitdecay.jump.control.PlayerAction;
 import com.bitdecay.jump.properties.JumperProperties;
@@ -23,7 +24,7 @@ public class GroundedControlState extends SidewaysControlState {
     }
 
     @Override
-    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls) {
+    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls, BitWorld world) {
         handleLeftRight(delta, body, controls, body.props.acceleration, body.props.deceleration);
         return checkStateChange(delta, body, controls);
     }
@@ -1,6 +1,7 @@
 package com.bitdecay.jump.control.state;
 
 import com.bitdecay.jump.JumperBody;
+import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.ControlMap;
 
 /**
@@ -9,5 +10,5 @@ import com.bitdecay.jump.control.ControlMap;
 public interface JumperBodyControlState {
     void stateEntered(JumperBody body, ControlMap controls);
     void stateExited(JumperBody body, ControlMap controls);
-    JumperBodyControlState update(float delta, JumperBody body, ControlMap controls);
+    JumperBodyControlState update(float delta, JumperBody body, ControlMap controls, BitWorld world);
 }
@@ -29,11 +29,11 @@ public class JumpingControlState extends SidewaysControlState {
     }
 
     @Override
-    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls) {
+    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls, BitWorld world) {
 
         handleLeftRight(delta, body, controls, body.props.airAcceleration, body.props.airDeceleration);
         if (body.jumperProps.jumpHittingHeadStopsJump){
-            if (BitWorld.gravity.dot(body.lastResolution) > 0) {
+            if (world.getGravity().dot(body.lastResolution) > 0) {
                 return new FallingControlState();
             }
         }
@@ -43,12 +43,12 @@ public class JumpingControlState extends SidewaysControlState {
             if (controls.isPressed(PlayerAction.JUMP) && jumpVariableHeightWindow <= body.jumperProps.jumpVariableHeightWindow) {
                 if (body.jumpsRemaining == body.jumperProps.jumpCount) {
                     // first jump
-                    int desiredJumpSpeed = body.jumperProps.jumpStrength * (MathUtils.sameSign(BitWorld.gravity.y, body.jumperProps.jumpStrength) ? -1 : 1);
+                    int desiredJumpSpeed = body.jumperProps.jumpStrength * (MathUtils.sameSign(world.getGravity().y, body.jumperProps.jumpStrength) ? -1 : 1);
                     if (body.velocity.y <= desiredJumpSpeed) {
                         body.velocity.y = desiredJumpSpeed;
                     }
                 } else {
-                    int desiredJumpSpeed = body.jumperProps.jumpDoubleJumpStrength * (MathUtils.sameSign(BitWorld.gravity.y, body.jumperProps.jumpDoubleJumpStrength) ? -1 : 1);
+                    int desiredJumpSpeed = body.jumperProps.jumpDoubleJumpStrength * (MathUtils.sameSign(world.getGravity().y, body.jumperProps.jumpDoubleJumpStrength) ? -1 : 1);
                     if (body.velocity.y <= desiredJumpSpeed) {
                         body.velocity.y = desiredJumpSpeed;
                     }
@@ -59,7 +59,7 @@ public class JumpingControlState extends SidewaysControlState {
                 return new FallingControlState();
             }
         } else {
-            if (body.jumperProps.wallSlideEnabled && BitWorld.gravity.dot(body.currentAttempt) > 0 && body.lastResolution.x != 0) {
+            if (body.jumperProps.wallSlideEnabled && world.getGravity().dot(body.currentAttempt) > 0 && body.lastResolution.x != 0) {
                 return new WallSlideState();
             }
             return new GroundedControlState();
@@ -1,6 +1,7 @@
 package com.bitdecay.jump.control.state;
 
 import com.bitdecay.jump.JumperBody;
+import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.ControlMap;
 import com.bitdecay.jump.control.PlayerAction;
 import com.bitdecay.jump.geom.MathUtils;
@@ -29,7 +30,7 @@ public class WallSlideState implements JumperBodyControlState {
     }
 
     @Override
-    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls) {
+    public JumperBodyControlState update(float delta, JumperBody body, ControlMap controls, BitWorld world) {
         if (body.grounded) {
             return new GroundedControlState();
         } else {
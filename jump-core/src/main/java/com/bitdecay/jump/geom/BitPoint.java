@@ -40,6 +40,18 @@ public class BitPoint {
 		this.y += y;
 	}
 
+	/**
+	 * adds point's values multiplied by scale to this object. Same as
+	 * <code>add(point.scale(scale))</code> without creating a new point.
+	 *
+	 * @param point
+	 * @param scale
+	 */
+	public void addScaled(BitPoint point, float scale) {
+		this.x += point.x * scale;
+		this.y += point.y * scale;
+	}
+
 	/**
 	 * returns the total of this plus point
 	 *
@@ -68,7 +80,20 @@ public class BitPoint {
 	}
 
 	public BitPoint scale(float scale) {
-		return new BitPoint(x * scale, y * scale);
+		return scaleInto(scale, new BitPoint());
+	}
+
+	/**
+	 * Writes this point multiplied by scale into out. out may be this point.
+	 *
+	 * @param scale
+	 * @param out
+	 * @return out for chaining
+	 */
+	public BitPoint scaleInto(float scale, BitPoint out) {
+		out.x = x * scale;
+		out.y = y * scale;
+		return out;
 	}
 
 	public BitPoint dividedBy(float divisor) {
@@ -92,13 +117,23 @@ public class BitPoint {
 	}
 
 	public BitPoint normalize() {
-		BitPoint normal = new BitPoint(this);
-		float len = normal.len();
+		return normalizeInto(new BitPoint());
+	}
+
+	/**
+	 * Writes the unit vector of this point into out. out may be this point.
+	 *
+	 * @param out
+	 * @return out for chaining
+	 */
+	public BitPoint normalizeInto(BitPoint out) {
+		float len = len();
+		out.set(this);
 		if (len != 0) {
-			normal.x /= len;
-			normal.y /= len;
+			out.x /= len;
+			out.y /= len;
 		}
-		return normal;
+		return out;
 	}
 
 	/**
@@ -122,19 +157,31 @@ public class BitPoint {
 	 * @return
 	 */
 	public BitPoint shrink(float amount) {
-		BitPoint result = new BitPoint(this);
-		if (result.x > 0) {
-			result.x = Math.max(0, x - amount);
-		} else if (result.x < 0) {
-			result.x = Math.min(0, x + amount);
+		return shrinkInto(amount, new BitPoint());
+	}
+
+	/**
+	 * Writes this point pulled towards zero into out. out may be this point.
+	 *
+	 * @param amount
+	 *            how far to shrink the point
+	 * @param out
+	 * @return out for chaining
+	 */
+	public BitPoint shrinkInto(float amount, BitPoint out) {
+		out.set(this);
+		if (out.x > 0) {
+			out.x = Math.max(0, out.x - amount);
+		} else if (out.x < 0) {
+			out.x = Math.min(0, out.x + amount);
 		}
 
-		if (result.y > 0) {
-			result.y = Math.max(0, y - amount);
-		} else if (result.y < 0) {
-			result.y = Math.min(0, y + amount);
+		if (out.y > 0) {
+			out.y = Math.max(0, out.y - amount);
+		} else if (out.y < 0) {
+			out.y = Math.min(0, out.y + amount);
 		}
-		return result;
+		return out;
 	}
 
 	@Override
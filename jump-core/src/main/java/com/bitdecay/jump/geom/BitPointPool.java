@@ -0,0 +1,46 @@
+package com.bitdecay.jump.geom;
+
+import java.util.Arrays;
+
+/**
+ * A simple pool of scratch points for math that runs every step. Points handed
+ * out by {@link #obtain()} hold whatever values they were last given, so they
+ * should always be written before they are read.<br>
+ * <br>
+ * Not thread safe. Each thread doing math should have its own pool.
+ */
+public class BitPointPool {
+	private BitPoint[] free = new BitPoint[8];
+	private int freeCount;
+
+	/**
+	 * @return a point from the pool, or a new one if the pool is empty
+	 */
+	public BitPoint obtain() {
+		if (freeCount == 0) {
+			return new BitPoint();
+		}
+		BitPoint point = free[--freeCount];
+		free[freeCount] = null;
+		return point;
+	}
+
+	/**
+	 * Returns a point to the pool. The point must not be used after this.
+	 *
+	 * @param point
+	 */
+	public void free(BitPoint point) {
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, freeCount * 2);
+		}
+		free[freeCount++] = point;
+	}
+
+	/**
+	 * @return how many points are currently waiting in the pool
+	 */
+	public int getFreeCount() {
+		return freeCount;
+	}
+}
@@ -73,6 +73,19 @@ public class BitRectangle implements Projectable {
 		return this;
 	}
 
+	/**
+	 * Translates by point multiplied by scale. Same as
+	 * <code>translate(point.scale(scale))</code> without creating a new point.
+	 * @param point
+	 * @param scale
+	 * @return this BitRectangle for chaining
+	 */
+	public BitRectangle translateScaled(BitPoint point, float scale) {
+		xy.x += point.x * scale;
+		xy.y += point.y * scale;
+		return this;
+	}
+
 	public BitPoint center() {
 		return new BitPoint(xy.x + width / 2, xy.y + height / 2);
 	}
@@ -101,6 +114,17 @@ public class BitRectangle implements Projectable {
 				&& other.xy.y + other.height <= this.xy.y + this.height;
 	}
 
+	/**
+	 * Tests if this rectangle overlaps another rectangle. Rectangles that
+	 * only share an edge, or that have no area, do not overlap.
+	 * @param other
+	 * @return true if the rectangles share some area, false otherwise
+	 */
+	public boolean overlaps(BitRectangle other) {
+		return Math.min(xy.x + width, other.xy.x + other.width) > Math.max(xy.x, other.xy.x)
+				&& Math.min(xy.y + height, other.xy.y + other.height) > Math.max(xy.y, other.xy.y);
+	}
+
 	@Override
 	public BitPoint[] getProjectionPoints() {
 		return new BitPoint[] {xy,  xy.plus(width, 0), xy.plus(width, height), xy.plus(0, height)};
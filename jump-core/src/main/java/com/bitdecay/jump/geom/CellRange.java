@@ -0,0 +1,50 @@
+package com.bitdecay.jump.geom;
+
+/**
+ * An inclusive range of grid cells covered by a rectangle. Meant to be reused so
+ * finding the cells a body occupies doesn't allocate.
+ */
+public class CellRange {
+    public int startX;
+    public int startY;
+    public int endX;
+    public int endY;
+
+    /**
+     * Sets this range to the cells covered by the given rectangle. The range is
+     * padded by one cell on the far edges, matching what the world has always
+     * considered 'occupied'.
+     * @param rect the rectangle to find cells for
+     * @param tileSize the size of a single cell
+     * @param gridOffset the grid offset, in cells
+     * @return this range for chaining
+     */
+    public CellRange set(BitRectangle rect, int tileSize, BitPointInt gridOffset) {
+        startX = Math.floorDiv((int) Math.floor(rect.xy.x), tileSize) - gridOffset.x;
+        startY = Math.floorDiv((int) Math.floor(rect.xy.y), tileSize) - gridOffset.y;
+        endX = (int) (startX + Math.ceil(1.0 * rect.width / tileSize));
+        endY = (int) (startY + Math.ceil(1.0 * rect.height / tileSize));
+        return this;
+    }
+
+    public CellRange set(CellRange other) {
+        startX = other.startX;
+        startY = other.startY;
+        endX = other.endX;
+        endY = other.endY;
+        return this;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= startX && x <= endX && y >= startY && y <= endY;
+    }
+
+    public boolean sameCells(CellRange other) {
+        return startX == other.startX && startY == other.startY && endX == other.endX && endY == other.endY;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + startX + ", " + startY + ") -> (" + endX + ", " + endY + ")";
+    }
+}
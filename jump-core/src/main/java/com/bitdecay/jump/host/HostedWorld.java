@@ -0,0 +1,125 @@
+package com.bitdecay.jump.host;
+
+import com.bitdecay.jump.collision.BitWorld;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A world registered with a {@link WorldHost}. The host only ever steps a world from one
+ * thread at a time, so anything that touches the world while it is hosted should go
+ * through {@link #execute(Consumer)} instead of calling into it directly.
+ */
+public class HostedWorld {
+    /**
+     * Worker index of a world that any worker may step
+     */
+    public static final int UNPINNED = -1;
+
+    private final BitWorld world;
+    private final float stepsPerSecond;
+    private final int worker;
+    private final StepTimes stepTimes = new StepTimes();
+    private final Queue<Consumer<BitWorld>> tasks = new ConcurrentLinkedQueue<>();
+
+    final long periodNanos;
+
+    /**
+     * The following are guarded by the host's lock
+     */
+    long nextStepNanos;
+    Thread steppingThread;
+    boolean removed;
+
+    /**
+     * Only touched by whichever thread is stepping the world
+     */
+    private long lastStepNanos;
+
+    private volatile long stepCount;
+    private volatile Throwable failure;
+
+    HostedWorld(BitWorld world, float stepsPerSecond, int worker, long now) {
+        this.world = world;
+        this.stepsPerSecond = stepsPerSecond;
+        this.worker = worker;
+        periodNanos = Math.max(1, (long) (1_000_000_000L / (double) stepsPerSecond));
+        lastStepNanos = now;
+        nextStepNanos = now + periodNanos;
+    }
+
+    /**
+     * Runs any queued tasks, then steps the world by the time since its last step
+     */
+    void step(long now) {
+        try {
+            Consumer<BitWorld> task;
+            while ((task = tasks.poll()) != null) {
+                task.accept(world);
+            }
+            float delta = (now - lastStepNanos) / 1_000_000_000f;
+            lastStepNanos = now;
+            long start = System.nanoTime();
+            world.step(delta);
+            stepTimes.record(System.nanoTime() - start);
+            stepCount++;
+        } catch (Throwable t) {
+            failure = t;
+        }
+    }
+
+    /**
+     * Queues up work to be done on the world right before its next step, on the thread
+     * that steps it. Tasks run in the order they were queued.
+     * @param task
+     */
+    public void execute(Consumer<BitWorld> task) {
+        tasks.add(task);
+    }
+
+    /**
+     * @return the world. Only safe to use directly before it is hosted, after it is
+     * removed from the host, or from inside a task given to {@link #execute(Consumer)}.
+     */
+    public BitWorld getWorld() {
+        return world;
+    }
+
+    /**
+     * @return how many times per second the host steps this world
+     */
+    public float getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    /**
+     * @return the worker this world is pinned to, or {@link #UNPINNED}
+     */
+    public int getWorker() {
+        return worker;
+    }
+
+    public boolean isPinned() {
+        return worker != UNPINNED;
+    }
+
+    /**
+     * @return how long recent calls to {@link BitWorld#step(float)} took
+     */
+    public StepTimes getStepTimes() {
+        return stepTimes;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * @return whatever was thrown while stepping the world or running one of its tasks,
+     * null if nothing was. A world that failed is no longer stepped.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bitdecay.jump.host;
+
+import java.util.Arrays;
+
+/**
+ * Keeps how long the most recent steps of a world took, so percentiles of them can be
+ * read from any thread while the world keeps stepping.
+ */
+public class StepTimes {
+    /**
+     * How many of the most recent steps are kept by default
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final long[] nanos;
+    private final long[] sorted;
+    private int next;
+    private int size;
+    private long total;
+
+    public StepTimes() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StepTimes(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        nanos = new long[capacity];
+        sorted = new long[capacity];
+    }
+
+    public synchronized void record(long stepNanos) {
+        nanos[next] = stepNanos;
+        next = (next + 1) % nanos.length;
+        size = Math.min(size + 1, nanos.length);
+        total++;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the step time, in nanoseconds, that the given percent of the kept steps took
+     * no longer than. 0 if nothing has been recorded yet.
+     */
+    public synchronized long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (size == 0) {
+            return 0;
+        }
+        System.arraycopy(nanos, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        // nearest rank
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * @return how many steps are currently kept, up to the capacity
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return how many steps have been recorded in total
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        total = 0;
+    }
+}
@@ -0,0 +1,278 @@
+package com.bitdecay.jump.host;
+
+import com.bitdecay.jump.collision.BitWorld;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs many independent {@link BitWorld}s on a fixed set of worker threads, stepping each
+ * one on its own cadence. A world is only ever stepped by one thread at a time, and its
+ * contact and activity listeners are called on whichever worker stepped it.<br>
+ * <br>
+ * Unpinned worlds are stepped by whichever worker is free when they come due. Pinned
+ * worlds are stepped by their own worker to keep its caches warm, unless that worker has
+ * been busy with something else for a whole step of theirs, in which case a free worker
+ * takes them. Either way a slow world only ever holds up the worker stepping it.<br>
+ * <br>
+ * Hosted worlds should not be given a parallel pool, as that would share its threads
+ * between all of them.
+ */
+public class WorldHost implements AutoCloseable {
+    private static final Comparator<HostedWorld> BY_NEXT_STEP = Comparator.comparingLong(world -> world.nextStepNanos);
+
+    /**
+     * The longest a worker waits before looking for work again
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Worker[] workers;
+    private final PriorityQueue<HostedWorld> unpinned = new PriorityQueue<>(BY_NEXT_STEP);
+    private final List<HostedWorld> worlds = new ArrayList<>();
+    private boolean running = true;
+
+    /**
+     * @param workerCount how many threads to step worlds with
+     */
+    public WorldHost(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Starts stepping the given world on whichever worker is free
+     * @param world
+     * @param stepsPerSecond how many times per second to step the world. Each step covers
+     *                       the time since the last one.
+     * @return the handle to use for the world while it is hosted
+     */
+    public HostedWorld add(BitWorld world, float stepsPerSecond) {
+        return add(world, stepsPerSecond, HostedWorld.UNPINNED);
+    }
+
+    /**
+     * Starts stepping the given world, preferably on the given worker
+     * @param world
+     * @param stepsPerSecond how many times per second to step the world. Each step covers
+     *                       the time since the last one.
+     * @param worker the index of the worker to pin the world to, or {@link HostedWorld#UNPINNED}
+     * @return the handle to use for the world while it is hosted
+     */
+    public HostedWorld add(BitWorld world, float stepsPerSecond, int worker) {
+        if (!(stepsPerSecond > 0)) {
+            throw new IllegalArgumentException("Steps per second must be positive: " + stepsPerSecond);
+        }
+        if (worker != HostedWorld.UNPINNED && (worker < 0 || worker >= workers.length)) {
+            throw new IllegalArgumentException("No worker " + worker + " in a host with " + workers.length);
+        }
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Host has been closed");
+            }
+            for (HostedWorld hosted : worlds) {
+                if (hosted.getWorld() == world) {
+                    throw new IllegalArgumentException("World is already hosted");
+                }
+            }
+            HostedWorld hosted = new HostedWorld(world, stepsPerSecond, worker, System.nanoTime());
+            worlds.add(hosted);
+            queueFor(hosted).add(hosted);
+            changed.signalAll();
+            return hosted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops stepping the given world. If it is in the middle of a step, this waits for the
+     * step to finish, unless called from that step itself.
+     * @param hosted
+     */
+    public void remove(HostedWorld hosted) {
+        lock.lock();
+        try {
+            if (!worlds.remove(hosted)) {
+                return;
+            }
+            hosted.removed = true;
+            queueFor(hosted).remove(hosted);
+            changed.signalAll();
+            while (hosted.steppingThread != null && hosted.steppingThread != Thread.currentThread()) {
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<HostedWorld> getWorlds() {
+        lock.lock();
+        try {
+            return new ArrayList<>(worlds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Stops all workers once they finish their current step, and waits for them
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        for (Worker worker : workers) {
+            while (worker.isAlive() && worker != Thread.currentThread()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PriorityQueue<HostedWorld> queueFor(HostedWorld hosted) {
+        return hosted.isPinned() ? workers[hosted.getWorker()].pinned : unpinned;
+    }
+
+    /**
+     * Finds the next world the given worker should step, and takes it out of its queue.
+     * Must hold the lock.
+     */
+    private HostedWorld take(Worker worker, long now) {
+        HostedWorld own = worker.pinned.peek();
+        HostedWorld shared = unpinned.peek();
+        boolean ownDue = own != null && own.nextStepNanos <= now;
+        boolean sharedDue = shared != null && shared.nextStepNanos <= now;
+        if (ownDue && (!sharedDue || own.nextStepNanos <= shared.nextStepNanos)) {
+            return worker.pinned.poll();
+        } else if (sharedDue) {
+            return unpinned.poll();
+        }
+
+        // help out with pinned worlds whose worker has been held up for a whole step of theirs
+        for (Worker other : workers) {
+            HostedWorld late = other.pinned.peek();
+            if (other != worker && other.current != null && late != null && now - late.nextStepNanos >= late.periodNanos) {
+                return other.pinned.poll();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the time the given worker might next have something to do. Must hold the lock.
+     */
+    private long nextWake(Worker worker, long now) {
+        long wake = now + MAX_WAIT_NANOS;
+        HostedWorld own = worker.pinned.peek();
+        if (own != null) {
+            wake = Math.min(wake, own.nextStepNanos);
+        }
+        HostedWorld shared = unpinned.peek();
+        if (shared != null) {
+            wake = Math.min(wake, shared.nextStepNanos);
+        }
+        for (Worker other : workers) {
+            HostedWorld late = other.pinned.peek();
+            if (other != worker && other.current != null && late != null) {
+                wake = Math.min(wake, late.nextStepNanos + late.periodNanos);
+            }
+        }
+        return wake;
+    }
+
+    /**
+     * Puts a world back in its queue for its next step. Worlds that fell more than a step
+     * behind skip ahead rather than stepping several times in a row, since each step covers
+     * all the time since the last one anyway. Must hold the lock.
+     */
+    private void reschedule(HostedWorld hosted, long now) {
+        hosted.nextStepNanos += hosted.periodNanos;
+        if (hosted.nextStepNanos < now) {
+            hosted.nextStepNanos = now;
+        }
+        queueFor(hosted).add(hosted);
+    }
+
+    private class Worker extends Thread {
+        private final PriorityQueue<HostedWorld> pinned = new PriorityQueue<>(BY_NEXT_STEP);
+
+        /**
+         * The world this worker is stepping, guarded by the lock
+         */
+        private HostedWorld current;
+
+        Worker(int index) {
+            super("WorldHost-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                while (running) {
+                    long now = System.nanoTime();
+                    HostedWorld hosted = take(this, now);
+                    if (hosted == null) {
+                        changed.awaitNanos(nextWake(this, now) - now);
+                        continue;
+                    }
+
+                    current = hosted;
+                    hosted.steppingThread = this;
+                    // others may now be allowed to take this worker's pinned worlds
+                    changed.signalAll();
+                    lock.unlock();
+                    try {
+                        hosted.step(now);
+                    } finally {
+                        lock.lock();
+                    }
+                    current = null;
+                    hosted.steppingThread = null;
+                    if (!hosted.removed && hosted.getFailure() == null) {
+                        reschedule(hosted, System.nanoTime());
+                    }
+                    changed.signalAll();
+                }
+            } catch (InterruptedException e) {
+                // asked to stop
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
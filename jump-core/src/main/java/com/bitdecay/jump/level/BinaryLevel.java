@@ -0,0 +1,433 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.GeomUtils;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A level in the precompiled binary format, read straight out of a (usually memory
+ * mapped) buffer. Tiles are read into a {@link TileGrid} in bulk, or a chunk at a time
+ * through {@link TileChunkSource}, without ever building {@link TileObject}s. Other
+ * objects are only parsed when asked for.<br>
+ * <br>
+ * The format is big-endian and laid out as:
+ * <ul>
+ *     <li>A {@link #HEADER_SIZE} byte header of ints: magic, version, tile size, theme,
+ *     grid offset x and y, width, height, tile section start, object count, object
+ *     section start, trigger count, trigger section start, string count, string
+ *     section start and the total length.</li>
+ *     <li>The tile section, four packed arrays with one entry per cell in column order
+ *     (x * height + y): collision flags as kept by {@link TileGrid}, collision neighbor
+ *     values and render neighbor values as bytes, then materials as shorts.</li>
+ *     <li>The object and trigger sections, {@link #ENTRY_SIZE} bytes per object: the
+ *     type name and uuid as string indexes, the rectangle as four floats and the
+ *     object's JSON as a string index.</li>
+ *     <li>The string section, a table of offsets into it followed by each string as a
+ *     length and its UTF-8 bytes.</li>
+ * </ul>
+ * Opening a level checks the header, the section bounds and the string table. Tile
+ * flags are checked as cells are read, or all at once with {@link #verify()}.<br>
+ * <br>
+ * Use {@link BinaryLevelWriter} to make one.
+ */
+public class BinaryLevel implements TileChunkSource {
+    /**
+     * "JLVL"
+     */
+    public static final int MAGIC = 0x4A4C564C;
+    public static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int ENTRY_SIZE = 28;
+
+    private final ByteBuffer buffer;
+    private final int tileSize;
+    private final int theme;
+    private final BitPointInt gridOffset;
+    private final int width;
+    private final int height;
+
+    private final int flagsStart;
+    private final int nValuesStart;
+    private final int renderNValuesStart;
+    private final int materialsStart;
+
+    private final int objectCount;
+    private final int objectsStart;
+    private final int triggerCount;
+    private final int triggersStart;
+    private final int stringCount;
+    private final int stringsStart;
+
+    private BinaryLevel(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary level");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary level version: " + version);
+        }
+        if (buffer.getInt(60) != buffer.limit()) {
+            throw new IOException("Binary level should be " + buffer.getInt(60) + " bytes but is " + buffer.limit());
+        }
+        this.buffer = buffer;
+        tileSize = buffer.getInt(8);
+        theme = buffer.getInt(12);
+        gridOffset = new BitPointInt(buffer.getInt(16), buffer.getInt(20));
+        width = buffer.getInt(24);
+        height = buffer.getInt(28);
+        if (tileSize <= 0) {
+            throw new IOException("Binary level has a bad tile size: " + tileSize);
+        }
+        if (width < 0 || height < 0 || (long) width * height * 5 > Integer.MAX_VALUE) {
+            throw new IOException("Binary level has a bad grid size: " + width + "x" + height);
+        }
+        int cells = width * height;
+        flagsStart = buffer.getInt(32);
+        checkSection("tile", flagsStart, cells * 5L);
+        nValuesStart = flagsStart + cells;
+        renderNValuesStart = nValuesStart + cells;
+        materialsStart = renderNValuesStart + cells;
+        objectCount = checkCount("object", buffer.getInt(36));
+        objectsStart = buffer.getInt(40);
+        checkSection("object", objectsStart, (long) objectCount * ENTRY_SIZE);
+        triggerCount = checkCount("trigger", buffer.getInt(44));
+        triggersStart = buffer.getInt(48);
+        checkSection("trigger", triggersStart, (long) triggerCount * ENTRY_SIZE);
+        stringCount = checkCount("string", buffer.getInt(52));
+        stringsStart = buffer.getInt(56);
+        checkSection("string", stringsStart, stringCount * 4L);
+
+        // everything an entry points at is checked up front, so reading objects can't run off the buffer.
+        // Tile flags are left to verify() or to when cells are read, so opening doesn't touch every page
+        for (int i = 0; i < stringCount; i++) {
+            long start = stringsStart + (long) buffer.getInt(stringsStart + i * 4);
+            if (start < stringsStart + stringCount * 4L || start + 4 > buffer.limit()) {
+                throw new IOException("Binary level string " + i + " starts outside the string section");
+            }
+            int length = buffer.getInt((int) start);
+            if (length < 0 || start + 4 + length > buffer.limit()) {
+                throw new IOException("Binary level string " + i + " does not fit in the file");
+            }
+        }
+        checkEntries("object", objectsStart, objectCount);
+        checkEntries("trigger", triggersStart, triggerCount);
+    }
+
+    /**
+     * Checks the flags of every cell up front. Flags are otherwise only checked as cells are
+     * read, which throws an {@link IllegalStateException} partway through instead. This reads
+     * the whole tile section, so it touches every page of a mapped file.
+     */
+    public void verify() throws IOException {
+        for (int i = 0; i < width * height; i++) {
+            if (!TileGrid.isValidFlags(buffer.get(flagsStart + i))) {
+                throw new IOException("Binary level has unknown tile flags in cell " + i);
+            }
+        }
+    }
+
+    private static int checkCount(String section, int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Binary level has a negative " + section + " count: " + count);
+        }
+        return count;
+    }
+
+    private void checkSection(String section, int start, long length) throws IOException {
+        if (start < HEADER_SIZE || start + length > buffer.limit()) {
+            throw new IOException("Binary level " + section + " section does not fit in the file");
+        }
+    }
+
+    private void checkEntries(String section, int sectionStart, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            int entry = sectionStart + i * ENTRY_SIZE;
+            // type, uuid and JSON
+            checkStringIndex(section, i, buffer.getInt(entry));
+            checkStringIndex(section, i, buffer.getInt(entry + 4));
+            checkStringIndex(section, i, buffer.getInt(entry + 24));
+        }
+    }
+
+    private void checkStringIndex(String section, int entry, int index) throws IOException {
+        if (index < 0 || index >= stringCount) {
+            throw new IOException("Binary level " + section + " " + entry + " refers to string " + index + " in a table of " + stringCount);
+        }
+    }
+
+    /**
+     * Maps the given file into memory. The file should not be changed while the level is in use.
+     */
+    public static BinaryLevel map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param buffer a whole binary level, starting at position 0. Only read with absolute
+     *               gets, so its position and limit are left alone.
+     */
+    public static BinaryLevel wrap(ByteBuffer buffer) throws IOException {
+        return new BinaryLevel(buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * @return true if the file starts like a binary level
+     */
+    public static boolean isBinaryLevel(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTheme() {
+        return theme;
+    }
+
+    /**
+     * @return the grid offset, in cells
+     */
+    public BitPointInt getGridOffset() {
+        return new BitPointInt(gridOffset.x, gridOffset.y);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isSolid(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && flags(index(x, y)) != 0;
+    }
+
+    public int getNValue(int x, int y) {
+        return buffer.get(nValuesStart + index(x, y));
+    }
+
+    public int getRenderNValue(int x, int y) {
+        return buffer.get(renderNValuesStart + index(x, y));
+    }
+
+    public int getMaterial(int x, int y) {
+        return buffer.getShort(materialsStart + index(x, y) * 2);
+    }
+
+    /**
+     * @return the only axis the tile in the given cell can be collided from, or null
+     */
+    public BitPoint getCollisionAxis(int x, int y) {
+        return TileGrid.axisOf(flags(index(x, y)));
+    }
+
+    /**
+     * Copies the whole tile layer into a new grid
+     */
+    public TileGrid toTileGrid() {
+        int cells = width * height;
+        byte[] flags = new byte[cells];
+        byte[] nValues = new byte[cells];
+        short[] materials = new short[cells];
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(flagsStart);
+        view.get(flags);
+        ((Buffer) view).position(nValuesStart);
+        view.get(nValues);
+        ((Buffer) view).position(materialsStart);
+        view.asShortBuffer().get(materials);
+        for (int i = 0; i < cells; i++) {
+            checkFlags(flags[i], i);
+        }
+        return new TileGrid(width, height, tileSize, gridOffset, flags, nValues, materials);
+    }
+
+    /**
+     * Chunks are counted from the level's grid offset, the same as {@link LevelChunkSource}
+     */
+    @Override
+    public boolean fillChunk(int chunkX, int chunkY, TileGrid chunk) {
+        int startX = chunkX * chunk.getWidth();
+        int startY = chunkY * chunk.getHeight();
+        int endX = Math.min(width, startX + chunk.getWidth());
+        int endY = Math.min(height, startY + chunk.getHeight());
+        boolean any = false;
+        for (int x = Math.max(0, startX); x < endX; x++) {
+            for (int y = Math.max(0, startY); y < endY; y++) {
+                int index = x * height + y;
+                byte cellFlags = flags(index);
+                if (cellFlags != 0) {
+                    chunk.setPacked(x - startX, y - startY, cellFlags, buffer.get(nValuesStart + index), buffer.getShort(materialsStart + index * 2));
+                    any = true;
+                }
+            }
+        }
+        return any;
+    }
+
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * @return the class name of the given object
+     */
+    public String getObjectType(int index) {
+        return getString(buffer.getInt(entry(objectsStart, objectCount, index)));
+    }
+
+    /**
+     * @return the rectangle of the given object, without parsing the rest of it
+     */
+    public BitRectangle getObjectRect(int index) {
+        return readRect(entry(objectsStart, objectCount, index));
+    }
+
+    /**
+     * Parses the given object
+     * @return the object, or null if its class can't be found or it fails to parse
+     */
+    public LevelObject getObject(int index) {
+        return readObject(entry(objectsStart, objectCount, index), LevelObject.class);
+    }
+
+    public int getTriggerCount() {
+        return triggerCount;
+    }
+
+    /**
+     * Parses the given trigger
+     * @return the trigger, or null if it fails to parse
+     */
+    public TriggerObject getTrigger(int index) {
+        return readObject(entry(triggersStart, triggerCount, index), TriggerObject.class);
+    }
+
+    /**
+     * Builds a full {@link Level}, tile objects and all, for tools that edit or render
+     * levels that way
+     */
+    public Level toLevel() {
+        Level level = new Level(tileSize);
+        level.theme = theme;
+        level.gridOffset = getGridOffset();
+        level.gridObjects = new TileObject[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int index = x * height + y;
+                byte cellFlags = flags(index);
+                if (cellFlags != 0) {
+                    TileObject object = new TileObject();
+                    object.rect = new BitRectangle((gridOffset.x + x) * tileSize, (gridOffset.y + y) * tileSize, tileSize, tileSize);
+                    object.material = buffer.getShort(materialsStart + index * 2);
+                    object.collideNValue = buffer.get(nValuesStart + index);
+                    object.renderNValue = buffer.get(renderNValuesStart + index);
+                    object.oneway = GeomUtils.Y_AXIS.equals(TileGrid.axisOf(cellFlags));
+                    level.gridObjects[x][y] = object;
+                }
+            }
+        }
+        List<LevelObject> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            LevelObject object = getObject(i);
+            if (object != null) {
+                objects.add(object);
+            }
+        }
+        level.otherObjects = objects;
+        List<TriggerObject> triggers = new ArrayList<>(triggerCount);
+        for (int i = 0; i < triggerCount; i++) {
+            TriggerObject trigger = getTrigger(i);
+            if (trigger != null) {
+                triggers.add(trigger);
+            }
+        }
+        level.triggers = triggers;
+        return level;
+    }
+
+    private <T> T readObject(int entry, Class<T> expected) {
+        String type = getString(buffer.getInt(entry));
+        Class<?> clazz;
+        try {
+            // not initialized here, the class is only loaded to check what it is
+            clazz = Class.forName(type, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (!expected.isAssignableFrom(clazz)) {
+            return null;
+        }
+        return expected.cast(FileUtils.loadFileAs(clazz, getString(buffer.getInt(entry + 24))));
+    }
+
+    private BitRectangle readRect(int entry) {
+        BitRectangle rect = new BitRectangle();
+        rect.xy = new BitPoint(buffer.getFloat(entry + 8), buffer.getFloat(entry + 12));
+        rect.width = buffer.getFloat(entry + 16);
+        rect.height = buffer.getFloat(entry + 20);
+        return rect;
+    }
+
+    private String getString(int index) {
+        if (index < 0 || index >= stringCount) {
+            throw new IndexOutOfBoundsException("No string " + index + " in a table of " + stringCount);
+        }
+        int start = stringsStart + buffer.getInt(stringsStart + index * 4);
+        byte[] bytes = new byte[buffer.getInt(start)];
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(start + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int entry(int sectionStart, int count, int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No object " + index + " in a table of " + count);
+        }
+        return sectionStart + index * ENTRY_SIZE;
+    }
+
+    private byte flags(int index) {
+        return checkFlags(buffer.get(flagsStart + index), index);
+    }
+
+    private static byte checkFlags(byte cellFlags, int index) {
+        if (!TileGrid.isValidFlags(cellFlags)) {
+            throw new IllegalStateException("Binary level has unknown tile flags in cell " + index);
+        }
+        return cellFlags;
+    }
+
+    private int index(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is not on a " + width + "x" + height + " level");
+        }
+        return x * height + y;
+    }
+}
@@ -0,0 +1,173 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes levels in the format read by {@link BinaryLevel}, and converts levels saved as
+ * JSON by {@link FileUtils}.
+ */
+public class BinaryLevelWriter {
+
+    private BinaryLevelWriter() {
+        // static only
+    }
+
+    /**
+     * Reads a level saved as JSON and writes it back out in the binary format
+     */
+    public static void convertJson(File json, File binary) throws IOException {
+        Level level = FileUtils.loadFileAs(Level.class, json);
+        if (level == null) {
+            throw new IOException("Could not read a level from " + json);
+        }
+        try (OutputStream out = new FileOutputStream(binary)) {
+            write(level, out);
+        }
+    }
+
+    public static byte[] toBytes(Level level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(level, bytes);
+        return bytes.toByteArray();
+    }
+
+    public static void write(Level level, OutputStream out) throws IOException {
+        TileObject[][] grid = level.gridObjects == null ? new TileObject[0][0] : level.gridObjects;
+        BitPointInt offset = level.gridOffset == null ? new BitPointInt(0, 0) : level.gridOffset;
+        TileGrid tiles = TileGrid.fromObjects(grid, level.tileSize, offset);
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+        int cells = width * height;
+
+        Strings strings = new Strings();
+        byte[] objects = entries(level.otherObjects, strings);
+        byte[] triggers = entries(level.triggers, strings);
+        byte[] stringTable = strings.toBytes();
+
+        int tilesStart = BinaryLevel.HEADER_SIZE;
+        int objectsStart = tilesStart + cells * 5;
+        int triggersStart = objectsStart + objects.length;
+        int stringsStart = triggersStart + triggers.length;
+        int length = stringsStart + stringTable.length;
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(BinaryLevel.MAGIC);
+        data.writeInt(BinaryLevel.VERSION);
+        data.writeInt(level.tileSize);
+        data.writeInt(level.theme);
+        data.writeInt(offset.x);
+        data.writeInt(offset.y);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeInt(tilesStart);
+        data.writeInt(objects.length / BinaryLevel.ENTRY_SIZE);
+        data.writeInt(objectsStart);
+        data.writeInt(triggers.length / BinaryLevel.ENTRY_SIZE);
+        data.writeInt(triggersStart);
+        data.writeInt(strings.size());
+        data.writeInt(stringsStart);
+        data.writeInt(length);
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                data.writeByte(tiles.getFlags(x, y));
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                data.writeByte(tiles.isSolid(x, y) ? checkNValue(grid[x][y].collideNValue) : 0);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                data.writeByte(tiles.isSolid(x, y) ? checkNValue(grid[x][y].renderNValue) : 0);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                data.writeShort(tiles.isSolid(x, y) ? tiles.getMaterial(x, y) : 0);
+            }
+        }
+        data.write(objects);
+        data.write(triggers);
+        data.write(stringTable);
+        data.flush();
+    }
+
+    private static int checkNValue(int nValue) {
+        if (nValue < 0 || nValue > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Neighbor value does not fit in a binary level: " + nValue);
+        }
+        return nValue;
+    }
+
+    private static byte[] entries(List<? extends LevelObject> objects, Strings strings) throws IOException {
+        if (objects == null) {
+            objects = Collections.emptyList();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(objects.size() * BinaryLevel.ENTRY_SIZE);
+        DataOutputStream data = new DataOutputStream(bytes);
+        for (LevelObject object : objects) {
+            BitRectangle rect = object.rect == null ? new BitRectangle(0, 0, 0, 0) : object.rect;
+            data.writeInt(strings.indexOf(object.getClass().getName()));
+            data.writeInt(strings.indexOf(object.uuid == null ? "" : object.uuid));
+            data.writeFloat(rect.xy.x);
+            data.writeFloat(rect.xy.y);
+            data.writeFloat(rect.width);
+            data.writeFloat(rect.height);
+            data.writeInt(strings.indexOf(FileUtils.toCompactJson(object)));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Each distinct string only goes in the table once
+     */
+    private static class Strings {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return index;
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(bytes);
+            int offset = values.size() * 4;
+            for (byte[] value : values) {
+                data.writeInt(offset);
+                offset += 4 + value.length;
+            }
+            for (byte[] value : values) {
+                data.writeInt(value.length);
+                data.write(value);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
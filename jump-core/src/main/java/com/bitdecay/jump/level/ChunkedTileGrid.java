@@ -0,0 +1,336 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.collision.LongHashSet;
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.CellRange;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * A tile layer for levels too big, or too open-ended, to hold all at once. Tiles are
+ * kept in square chunks of {@link #CHUNK_SIZE} cells a side, keyed by chunk coordinate,
+ * and only the chunks around the areas given to {@link #update(Iterable, Consumer)} are
+ * loaded. Chunks the areas cover are loaded right away if they aren't ready, and the
+ * ones just around them are prepared ahead of time on a background thread. Everything
+ * else is unloaded, so memory depends on the size of the areas rather than the level.<br>
+ * <br>
+ * Cells of loaded chunks answer exactly as a {@link TileGrid} of the whole level would.
+ * Cells of chunks that aren't loaded are empty.
+ */
+public class ChunkedTileGrid implements TileLayer, AutoCloseable {
+    public static final int CHUNK_SHIFT = 5;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static class Chunk {
+        final int chunkX;
+        final int chunkY;
+        /**
+         * Null if the chunk has no tiles
+         */
+        final TileGrid tiles;
+        final boolean failed;
+        long lastWanted = -1;
+
+        Chunk(int chunkX, int chunkY, TileGrid tiles, boolean failed) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.tiles = tiles;
+            this.failed = failed;
+        }
+    }
+
+    private final TileChunkSource source;
+    private final int tileSize;
+    private final BitPointInt offset;
+    private int preloadChunks = 1;
+
+    /**
+     * Loaded chunks, in an open addressing table. Only changed by {@link #update(Iterable, Consumer)},
+     * so lookups while the world steps need no locking.
+     */
+    private long[] keys = new long[64];
+    private Chunk[] chunks = new Chunk[64];
+    private int mask = 63;
+    private int size;
+
+    /**
+     * Chunks asked of the background thread that haven't been taken in yet
+     */
+    private final LongHashSet requested = new LongHashSet();
+    private final Queue<Chunk> ready = new ConcurrentLinkedQueue<>();
+    private final ExecutorService loader;
+
+    private long updates;
+    private final CellRange cells = new CellRange();
+    private long[] unloading = new long[16];
+
+    /**
+     * @param source where the tiles of each chunk come from
+     * @param tileSize the size of a single cell
+     * @param offset the grid offset, in cells. Chunk (0, 0) starts at this cell.
+     */
+    public ChunkedTileGrid(TileChunkSource source, int tileSize, BitPointInt offset) {
+        this.source = source;
+        this.tileSize = tileSize;
+        this.offset = new BitPointInt(offset.x, offset.y);
+        loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ChunkedTileGrid-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams a level's dense grid. Mostly useful for levels that were saved whole.
+     */
+    public static ChunkedTileGrid fromLevel(Level level) {
+        return new ChunkedTileGrid(new LevelChunkSource(level), level.tileSize, level.gridOffset);
+    }
+
+    /**
+     * Brings in the chunks the given areas need and unloads all others. Only call this
+     * while nothing else is reading from the grid, the world does so at the start of each
+     * step.
+     * @param areas the parts of the world, in world units, that need their tiles
+     * @param unloaded called with each built tile body of every chunk that is unloaded
+     */
+    public void update(Iterable<BitRectangle> areas, Consumer<TileBody> unloaded) {
+        updates++;
+        Chunk finished;
+        while ((finished = ready.poll()) != null) {
+            long key = key(finished.chunkX, finished.chunkY);
+            requested.remove(requestKey(key));
+            if (!finished.failed && find(key) == null) {
+                put(key, finished);
+            }
+        }
+
+        for (BitRectangle area : areas) {
+            cells.set(area, tileSize, offset);
+            int startX = cells.startX >> CHUNK_SHIFT;
+            int startY = cells.startY >> CHUNK_SHIFT;
+            int endX = cells.endX >> CHUNK_SHIFT;
+            int endY = cells.endY >> CHUNK_SHIFT;
+            for (int chunkX = startX - preloadChunks; chunkX <= endX + preloadChunks; chunkX++) {
+                for (int chunkY = startY - preloadChunks; chunkY <= endY + preloadChunks; chunkY++) {
+                    long key = key(chunkX, chunkY);
+                    Chunk chunk = find(key);
+                    if (chunk == null) {
+                        boolean covered = chunkX >= startX && chunkX <= endX && chunkY >= startY && chunkY <= endY;
+                        if (covered) {
+                            chunk = load(chunkX, chunkY);
+                            put(key, chunk);
+                        } else if (!loader.isShutdown() && requested.add(requestKey(key))) {
+                            requestLoad(chunkX, chunkY);
+                        }
+                    }
+                    if (chunk != null) {
+                        chunk.lastWanted = updates;
+                    }
+                }
+            }
+        }
+
+        int unloadCount = 0;
+        for (int slot = 0; slot < chunks.length; slot++) {
+            Chunk chunk = chunks[slot];
+            if (chunk != null && chunk.lastWanted != updates) {
+                if (chunk.tiles != null) {
+                    chunk.tiles.forEachBuiltTile(unloaded);
+                }
+                if (unloadCount == unloading.length) {
+                    unloading = Arrays.copyOf(unloading, unloadCount * 2);
+                }
+                unloading[unloadCount++] = keys[slot];
+            }
+        }
+        for (int i = 0; i < unloadCount; i++) {
+            remove(unloading[i]);
+        }
+    }
+
+    /**
+     * @param chunks how many chunks past the edges of each area to prepare in the background
+     */
+    public void setPreloadChunks(int chunks) {
+        if (chunks < 0) {
+            throw new IllegalArgumentException("Preload distance can not be negative: " + chunks);
+        }
+        preloadChunks = chunks;
+    }
+
+    public int getPreloadChunks() {
+        return preloadChunks;
+    }
+
+    public int getLoadedChunkCount() {
+        return size;
+    }
+
+    public boolean isLoaded(int chunkX, int chunkY) {
+        return find(key(chunkX, chunkY)) != null;
+    }
+
+    /**
+     * Stops the background thread. Chunks that are already loaded stay usable.
+     */
+    @Override
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    public boolean isClosed() {
+        return loader.isShutdown();
+    }
+
+    @Override
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    @Override
+    public BitPointInt getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isSolid(int x, int y) {
+        TileGrid tiles = tilesAt(x, y);
+        return tiles != null && tiles.isSolid(x & CHUNK_MASK, y & CHUNK_MASK);
+    }
+
+    @Override
+    public int getNValue(int x, int y) {
+        TileGrid tiles = tilesAt(x, y);
+        return tiles == null ? 0 : tiles.getNValue(x & CHUNK_MASK, y & CHUNK_MASK);
+    }
+
+    @Override
+    public int getMaterial(int x, int y) {
+        TileGrid tiles = tilesAt(x, y);
+        return tiles == null ? 0 : tiles.getMaterial(x & CHUNK_MASK, y & CHUNK_MASK);
+    }
+
+    @Override
+    public BitPoint getCollisionAxis(int x, int y) {
+        TileGrid tiles = tilesAt(x, y);
+        return tiles == null ? null : tiles.getCollisionAxis(x & CHUNK_MASK, y & CHUNK_MASK);
+    }
+
+    @Override
+    public TileBody getTile(int x, int y) {
+        TileGrid tiles = tilesAt(x, y);
+        return tiles == null ? null : tiles.getTile(x & CHUNK_MASK, y & CHUNK_MASK);
+    }
+
+    @Override
+    public void forEachBuiltTile(Consumer<TileBody> consumer) {
+        for (Chunk chunk : chunks) {
+            if (chunk != null && chunk.tiles != null) {
+                chunk.tiles.forEachBuiltTile(consumer);
+            }
+        }
+    }
+
+    private TileGrid tilesAt(int x, int y) {
+        // shifting rounds down, so negative cells land in the right chunk
+        Chunk chunk = find(key(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT));
+        return chunk == null ? null : chunk.tiles;
+    }
+
+    private Chunk load(int chunkX, int chunkY) {
+        TileGrid tiles = new TileGrid(CHUNK_SIZE, CHUNK_SIZE, tileSize, new BitPointInt(offset.x + chunkX * CHUNK_SIZE, offset.y + chunkY * CHUNK_SIZE));
+        boolean any = source.fillChunk(chunkX, chunkY, tiles);
+        return new Chunk(chunkX, chunkY, any ? tiles : null, false);
+    }
+
+    private void requestLoad(int chunkX, int chunkY) {
+        loader.execute(() -> {
+            try {
+                ready.add(load(chunkX, chunkY));
+            } catch (RuntimeException e) {
+                // let the next update ask again
+                ready.add(new Chunk(chunkX, chunkY, null, true));
+            }
+        });
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Chunk (-1, -1) packs to {@link LongHashSet#EMPTY}, so the sign bit is flipped before a
+     * key goes in {@link #requested}. Only a chunk x of {@link Integer#MAX_VALUE} could clash
+     * after that, and cell coordinates never reach it.
+     */
+    private static long requestKey(long key) {
+        return key ^ Long.MIN_VALUE;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private Chunk find(long key) {
+        for (int slot = slot(key); chunks[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return chunks[slot];
+            }
+        }
+        return null;
+    }
+
+    private void put(long key, Chunk chunk) {
+        int slot = slot(key);
+        while (chunks[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        chunks[slot] = chunk;
+        if (++size * 2 > chunks.length) {
+            long[] oldKeys = keys;
+            Chunk[] oldChunks = chunks;
+            keys = new long[oldKeys.length * 2];
+            chunks = new Chunk[oldChunks.length * 2];
+            mask = chunks.length - 1;
+            size = 0;
+            for (int i = 0; i < oldChunks.length; i++) {
+                if (oldChunks[i] != null) {
+                    put(oldKeys[i], oldChunks[i]);
+                }
+            }
+        }
+    }
+
+    private void remove(long key) {
+        int slot = slot(key);
+        while (chunks[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (chunks[slot] == null) {
+            return;
+        }
+        // shift back anything after it that would no longer be found past the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; chunks[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                chunks[gap] = chunks[next];
+                gap = next;
+            }
+        }
+        chunks[gap] = null;
+        size--;
+    }
+}
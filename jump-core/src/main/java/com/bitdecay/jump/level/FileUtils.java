@@ -16,7 +16,7 @@ public class FileUtils {
 
 	private static String lastTouchedDirectory = null;
 
-	private static final ObjectMapper mapper = new ObjectMapper();
+	static final ObjectMapper mapper = new ObjectMapper();
 	static {
 		mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
 		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -33,11 +33,50 @@ public class FileUtils {
 		}
 	}
 
+	/**
+	 * Same as {@link #toJson(Object)}, but without indentation and letting failures through
+	 */
+	public static String toCompactJson(Object obj) throws JsonProcessingException {
+		return mapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(obj);
+	}
+
 	public static String saveToFile(Object obj) {
 		return saveToFile(toJson(obj));
 	}
 
 	public static String saveToFile(String json) {
+		File file = chooseSaveFile();
+		if (file != null) {
+			try {
+				FileWriter writer = new FileWriter(file);
+				writer.write(json);
+				writer.close();
+				return json;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Streams the level out in the sparse format written by {@link LevelJson}
+	 * @return true if the level was saved
+	 */
+	public static boolean saveLevelToFile(Level level) {
+		File file = chooseSaveFile();
+		if (file != null) {
+			try {
+				LevelJson.write(level, file);
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return false;
+	}
+
+	private static File chooseSaveFile() {
 		JFileChooser fileChooser = new JFileChooser(lastTouchedDirectory) {
 			@Override
 			protected JDialog createDialog(Component parent) throws HeadlessException {
@@ -54,33 +93,41 @@ public class FileUtils {
 		if (fileChooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
 			lastTouchedFileName = fileChooser.getSelectedFile().getName();
 			lastTouchedDirectory = fileChooser.getSelectedFile().getParent();
-			try {
-				FileWriter writer = new FileWriter(fileChooser.getSelectedFile());
-				writer.write(json);
-				writer.close();
-				return json;
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			return fileChooser.getSelectedFile();
 		}
 		return null;
 	}
 
 	public static <T> T loadFileAs(Class<T> clazz) {
-		String file = loadFile();
-		if (file == null || file.length() <= 0) {
+		File file = chooseLoadFile();
+		if (file == null) {
 			return null;
 		} else {
 			return loadFileAs(clazz, file);
 		}
 	}
 
+	/**
+	 * Reads straight from the file rather than loading it into a string first. Levels are
+	 * read with {@link LevelJson}, so they can be in either the full or the sparse format.
+	 */
 	public static <T> T loadFileAs(Class<T> clazz, File file) {
-		return loadFileAs(clazz, loadFile(file));
+		try {
+			if (clazz == Level.class) {
+				return clazz.cast(LevelJson.read(file));
+			}
+			return mapper.readValue(file, clazz);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
 	}
 
 	public static <T> T loadFileAs(Class<T> clazz, String json) {
 		try {
+			if (clazz == Level.class) {
+				return clazz.cast(LevelJson.read(new StringReader(json)));
+			}
 			return mapper.readValue(json, clazz);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -89,6 +136,14 @@ public class FileUtils {
 	}
 
 	public static String loadFile() {
+		File file = chooseLoadFile();
+		if (file != null) {
+			return loadFile(file);
+		}
+		return null;
+	}
+
+	private static File chooseLoadFile() {
 		JFileChooser fileChooser = new JFileChooser(lastTouchedDirectory);
 		fileChooser.setApproveButtonText("Load");
 
@@ -96,7 +151,7 @@ public class FileUtils {
 			File selectedFile = fileChooser.getSelectedFile();
 			lastTouchedFileName = selectedFile.getName();
 			lastTouchedDirectory = selectedFile.getParent();
-			return loadFile(selectedFile);
+			return selectedFile;
 		}
 		return null;
 	}
@@ -105,7 +160,7 @@ public class FileUtils {
 		BufferedReader reader = null;
 		try {
 			reader = new BufferedReader(new FileReader(file));
-			StringBuffer json = new StringBuffer();
+			StringBuilder json = new StringBuilder();
 			String line = reader.readLine();
 			while (line != null) {
 				json.append(line);
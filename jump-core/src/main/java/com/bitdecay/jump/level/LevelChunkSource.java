@@ -0,0 +1,44 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.GeomUtils;
+
+/**
+ * Serves chunks out of a level's dense grid, so existing levels can be streamed. Chunks
+ * line up with the level's grid offset.
+ */
+public class LevelChunkSource implements TileChunkSource {
+    private final TileObject[][] grid;
+
+    public LevelChunkSource(Level level) {
+        this(level.gridObjects);
+    }
+
+    public LevelChunkSource(TileObject[][] grid) {
+        this.grid = grid;
+    }
+
+    @Override
+    public boolean fillChunk(int chunkX, int chunkY, TileGrid chunk) {
+        boolean any = false;
+        int startX = chunkX * ChunkedTileGrid.CHUNK_SIZE;
+        int startY = chunkY * ChunkedTileGrid.CHUNK_SIZE;
+        for (int x = 0; x < ChunkedTileGrid.CHUNK_SIZE; x++) {
+            int gridX = startX + x;
+            if (gridX < 0 || gridX >= grid.length) {
+                continue;
+            }
+            for (int y = 0; y < ChunkedTileGrid.CHUNK_SIZE; y++) {
+                int gridY = startY + y;
+                if (gridY < 0 || gridY >= grid[gridX].length) {
+                    continue;
+                }
+                TileObject object = grid[gridX][gridY];
+                if (object != null) {
+                    chunk.set(x, y, object.collideNValue, object.material, object.oneway ? GeomUtils.Y_AXIS : null);
+                    any = true;
+                }
+            }
+        }
+        return any;
+    }
+}
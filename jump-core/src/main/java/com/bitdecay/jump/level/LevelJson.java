@@ -0,0 +1,343 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams levels to and from JSON without holding the whole file in memory. Tiles are
+ * built straight into the grid as they are read, and empty cells are skipped.<br>
+ * <br>
+ * Levels in the original format, with the whole grid written out as "gridObjects", can
+ * still be read. Levels are written sparse instead: the grid size as "gridWidth" and
+ * "gridHeight", and only the solid cells under "tiles", each as an array of
+ * [x, y, material, collideNValue, renderNValue, oneway]. Tile rectangles follow from
+ * the cell, the tile size and the grid offset. Other objects and triggers are written
+ * the same as before.<br>
+ * <br>
+ * Tile uuids are not written in the sparse format, so tile identity is not preserved:
+ * every tile read from a sparse level gets a new uuid. Nothing looks tiles up by uuid,
+ * unlike other objects, which keep theirs. Uuids from the original format are still read.
+ */
+public class LevelJson {
+    private static final JavaType OBJECTS_TYPE = FileUtils.mapper.getTypeFactory().constructCollectionType(List.class, LevelObject.class);
+    private static final JavaType TRIGGERS_TYPE = FileUtils.mapper.getTypeFactory().constructCollectionType(List.class, TriggerObject.class);
+    private static final ObjectWriter OBJECTS_WRITER = FileUtils.mapper.writerFor(OBJECTS_TYPE).without(SerializationFeature.INDENT_OUTPUT);
+    private static final ObjectWriter TRIGGERS_WRITER = FileUtils.mapper.writerFor(TRIGGERS_TYPE).without(SerializationFeature.INDENT_OUTPUT);
+
+    private LevelJson() {
+        // static only
+    }
+
+    public static Level read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    public static Level read(InputStream in) throws IOException {
+        try (JsonParser parser = FileUtils.mapper.getFactory().createParser(in)) {
+            return read(parser);
+        }
+    }
+
+    public static Level read(Reader reader) throws IOException {
+        try (JsonParser parser = FileUtils.mapper.getFactory().createParser(reader)) {
+            return read(parser);
+        }
+    }
+
+    private static Level read(JsonParser parser) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+        Level level = new Level();
+        int width = -1;
+        int height = -1;
+        boolean sparse = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "tileSize":
+                    level.tileSize = parser.getIntValue();
+                    break;
+                case "theme":
+                    level.theme = parser.getIntValue();
+                    break;
+                case "gridOffset":
+                    level.gridOffset = readPointInt(parser);
+                    break;
+                case "gridObjects":
+                    level.gridObjects = readDenseGrid(parser);
+                    break;
+                case "gridWidth":
+                    width = parser.getIntValue();
+                    break;
+                case "gridHeight":
+                    height = parser.getIntValue();
+                    break;
+                case "tiles":
+                    if (width < 0 || height < 0) {
+                        throw new IOException("Sparse level tiles need a grid width and height before them");
+                    }
+                    level.gridObjects = new TileObject[width][height];
+                    readSparseTiles(parser, level.gridObjects);
+                    sparse = true;
+                    break;
+                case "otherObjects":
+                    level.otherObjects = FileUtils.mapper.readValue(parser, OBJECTS_TYPE);
+                    break;
+                case "triggers":
+                    level.triggers = FileUtils.mapper.readValue(parser, TRIGGERS_TYPE);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (sparse) {
+            // the tile size and offset may come after the tiles, so rectangles are filled in last
+            BitPointInt offset = level.gridOffset == null ? new BitPointInt(0, 0) : level.gridOffset;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    TileObject tile = level.gridObjects[x][y];
+                    if (tile != null) {
+                        tile.rect = new BitRectangle((offset.x + x) * level.tileSize, (offset.y + y) * level.tileSize, level.tileSize, level.tileSize);
+                    }
+                }
+            }
+        }
+        return level;
+    }
+
+    private static TileObject[][] readDenseGrid(JsonParser parser) throws IOException {
+        expect(parser.getCurrentToken(), JsonToken.START_ARRAY, parser);
+        List<TileObject[]> columns = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                columns.add(null);
+                continue;
+            }
+            expect(token, JsonToken.START_ARRAY, parser);
+            TileObject[] column = new TileObject[16];
+            int height = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (height == column.length) {
+                    column = Arrays.copyOf(column, height * 2);
+                }
+                if (token != JsonToken.VALUE_NULL) {
+                    column[height] = readTile(parser);
+                }
+                height++;
+            }
+            columns.add(column.length == height ? column : Arrays.copyOf(column, height));
+        }
+        return columns.toArray(new TileObject[columns.size()][]);
+    }
+
+    private static TileObject readTile(JsonParser parser) throws IOException {
+        expect(parser.getCurrentToken(), JsonToken.START_OBJECT, parser);
+        TileObject tile = new TileObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "rect":
+                    tile.rect = readRect(parser);
+                    break;
+                case "uuid":
+                    tile.uuid = parser.getText();
+                    break;
+                case "material":
+                    tile.material = parser.getIntValue();
+                    break;
+                case "renderNValue":
+                    tile.renderNValue = parser.getIntValue();
+                    break;
+                case "collideNValue":
+                    tile.collideNValue = parser.getIntValue();
+                    break;
+                case "oneway":
+                    tile.oneway = parser.getBooleanValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return tile;
+    }
+
+    private static void readSparseTiles(JsonParser parser, TileObject[][] grid) throws IOException {
+        expect(parser.getCurrentToken(), JsonToken.START_ARRAY, parser);
+        int[] values = new int[6];
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser.getCurrentToken(), JsonToken.START_ARRAY, parser);
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (count < values.length) {
+                    values[count] = token == JsonToken.VALUE_TRUE ? 1 : token == JsonToken.VALUE_FALSE ? 0 : parser.getIntValue();
+                }
+                count++;
+            }
+            if (count < values.length) {
+                throw new IOException("Sparse tiles need " + values.length + " values, found " + count + " at " + parser.getCurrentLocation());
+            }
+            int x = values[0];
+            int y = values[1];
+            if (x < 0 || x >= grid.length || y < 0 || y >= grid[x].length) {
+                throw new IOException("Tile (" + x + ", " + y + ") is not on the grid at " + parser.getCurrentLocation());
+            }
+            TileObject tile = new TileObject();
+            tile.material = values[2];
+            tile.collideNValue = values[3];
+            tile.renderNValue = values[4];
+            tile.oneway = values[5] != 0;
+            grid[x][y] = tile;
+        }
+    }
+
+    private static BitRectangle readRect(JsonParser parser) throws IOException {
+        expect(parser.getCurrentToken(), JsonToken.START_OBJECT, parser);
+        BitRectangle rect = new BitRectangle();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("xy".equals(field) && token == JsonToken.START_OBJECT) {
+                rect.xy = new BitPoint();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String axis = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("x".equals(axis)) {
+                        rect.xy.x = parser.getFloatValue();
+                    } else if ("y".equals(axis)) {
+                        rect.xy.y = parser.getFloatValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("width".equals(field)) {
+                rect.width = parser.getFloatValue();
+            } else if ("height".equals(field)) {
+                rect.height = parser.getFloatValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rect;
+    }
+
+    private static BitPointInt readPointInt(JsonParser parser) throws IOException {
+        expect(parser.getCurrentToken(), JsonToken.START_OBJECT, parser);
+        BitPointInt point = new BitPointInt();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("x".equals(field)) {
+                point.x = parser.getIntValue();
+            } else if ("y".equals(field)) {
+                point.y = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return point;
+    }
+
+    private static void expect(JsonToken token, JsonToken expected, JsonParser parser) throws IOException {
+        if (token != expected) {
+            throw new IOException("Expected " + expected + " but found " + token + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    public static void write(Level level, File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(level, out);
+        }
+    }
+
+    /**
+     * Writes the level in the sparse format. The stream is left open.
+     */
+    public static void write(Level level, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FileUtils.mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(level, generator);
+        }
+    }
+
+    private static void write(Level level, JsonGenerator generator) throws IOException {
+        TileObject[][] grid = level.gridObjects == null ? new TileObject[0][0] : level.gridObjects;
+        int width = grid.length;
+        int height = 0;
+        for (TileObject[] column : grid) {
+            if (column != null) {
+                height = Math.max(height, column.length);
+            }
+        }
+
+        generator.writeStartObject();
+        generator.writeNumberField("tileSize", level.tileSize);
+        if (level.gridOffset != null) {
+            generator.writeObjectFieldStart("gridOffset");
+            generator.writeNumberField("x", level.gridOffset.x);
+            generator.writeNumberField("y", level.gridOffset.y);
+            generator.writeEndObject();
+        }
+        generator.writeNumberField("gridWidth", width);
+        generator.writeNumberField("gridHeight", height);
+        generator.writeArrayFieldStart("tiles");
+        for (int x = 0; x < width; x++) {
+            if (grid[x] == null) {
+                continue;
+            }
+            for (int y = 0; y < grid[x].length; y++) {
+                TileObject tile = grid[x][y];
+                if (tile != null) {
+                    generator.writeStartArray();
+                    generator.writeNumber(x);
+                    generator.writeNumber(y);
+                    generator.writeNumber(tile.material);
+                    generator.writeNumber(tile.collideNValue);
+                    generator.writeNumber(tile.renderNValue);
+                    generator.writeNumber(tile.oneway ? 1 : 0);
+                    generator.writeEndArray();
+                }
+            }
+        }
+        generator.writeEndArray();
+        if (level.otherObjects != null) {
+            generator.writeFieldName("otherObjects");
+            OBJECTS_WRITER.writeValue(generator, level.otherObjects);
+        }
+        if (level.triggers != null) {
+            generator.writeFieldName("triggers");
+            TRIGGERS_WRITER.writeValue(generator, level.triggers);
+        }
+        generator.writeNumberField("theme", level.theme);
+        generator.writeEndObject();
+    }
+}
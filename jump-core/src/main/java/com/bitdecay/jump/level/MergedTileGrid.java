@@ -0,0 +1,164 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A compiled version of a {@link TileGrid} where neighboring tiles that would collide
+ * the same way share one body. Runs of solid tiles with the same neighbor value and
+ * material are merged greedily into rectangles, first along a row and then up as far
+ * as every row matches. One-way tiles are never merged.<br>
+ * <br>
+ * Since only tiles with identical neighbor values are merged, every edge of a merged
+ * body is either fully covered or fully open, and its neighbor value stays correct for
+ * each cell it covers. Bodies sliding over seams between merged bodies are treated the
+ * same as they would be on single tiles.<br>
+ * <br>
+ * Every cell a merged body covers hands out that body from {@link #getTile(int, int)}.
+ * Per cell values still come from the original grid.
+ */
+public class MergedTileGrid implements TileLayer {
+    private final TileGrid grid;
+    /**
+     * The body covering each cell, plus one. Zero for empty cells.
+     */
+    private final int[] owners;
+    private final TileBody[] bodies;
+
+    private MergedTileGrid(TileGrid grid, int[] owners, TileBody[] bodies) {
+        this.grid = grid;
+        this.owners = owners;
+        this.bodies = bodies;
+    }
+
+    public static MergedTileGrid merge(TileGrid grid) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int[] owners = new int[width * height];
+        List<TileBody> bodies = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (owners[x * height + y] != 0 || !grid.isSolid(x, y)) {
+                    continue;
+                }
+                int endX = x;
+                int endY = y;
+                if (grid.getCollisionAxis(x, y) == null) {
+                    while (endX + 1 < width && matches(grid, owners, x, y, endX + 1, y)) {
+                        endX++;
+                    }
+                    while (endY + 1 < height && rowMatches(grid, owners, x, y, endX, endY + 1)) {
+                        endY++;
+                    }
+                }
+
+                bodies.add(buildBody(grid, x, y, endX, endY));
+                for (int i = x; i <= endX; i++) {
+                    for (int j = y; j <= endY; j++) {
+                        owners[i * height + j] = bodies.size();
+                    }
+                }
+            }
+        }
+        return new MergedTileGrid(grid, owners, bodies.toArray(new TileBody[bodies.size()]));
+    }
+
+    private static boolean rowMatches(TileGrid grid, int[] owners, int startX, int startY, int endX, int y) {
+        for (int x = startX; x <= endX; x++) {
+            if (!matches(grid, owners, startX, startY, x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the cell (x, y) can join a body started at (startX, startY)
+     */
+    private static boolean matches(TileGrid grid, int[] owners, int startX, int startY, int x, int y) {
+        return owners[x * grid.getHeight() + y] == 0
+                && grid.isSolid(x, y)
+                && grid.getCollisionAxis(x, y) == null
+                && grid.getNValue(x, y) == grid.getNValue(startX, startY)
+                && grid.getMaterial(x, y) == grid.getMaterial(startX, startY);
+    }
+
+    private static TileBody buildBody(TileGrid grid, int startX, int startY, int endX, int endY) {
+        int tileSize = grid.getTileSize();
+        TileBody body = new TileBody();
+        body.material = grid.getMaterial(startX, startY);
+        body.aabb = new BitRectangle(grid.cellX(startX), grid.cellY(startY), (endX - startX + 1) * tileSize, (endY - startY + 1) * tileSize);
+        body.nValue = grid.getNValue(startX, startY);
+        body.bodyType = BodyType.STATIC;
+        body.collisionAxis = grid.getCollisionAxis(startX, startY);
+        return body;
+    }
+
+    /**
+     * @return the grid this was merged from
+     */
+    public TileGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return how many bodies the solid tiles were merged into
+     */
+    public int getBodyCount() {
+        return bodies.length;
+    }
+
+    @Override
+    public int getTileSize() {
+        return grid.getTileSize();
+    }
+
+    @Override
+    public BitPointInt getOffset() {
+        return grid.getOffset();
+    }
+
+    @Override
+    public boolean isSolid(int x, int y) {
+        return grid.isSolid(x, y);
+    }
+
+    @Override
+    public int getNValue(int x, int y) {
+        return grid.getNValue(x, y);
+    }
+
+    @Override
+    public int getMaterial(int x, int y) {
+        return grid.getMaterial(x, y);
+    }
+
+    @Override
+    public BitPoint getCollisionAxis(int x, int y) {
+        return grid.getCollisionAxis(x, y);
+    }
+
+    /**
+     * @return the merged body covering the given cell, or null if the cell is empty
+     */
+    @Override
+    public TileBody getTile(int x, int y) {
+        if (!grid.isSolid(x, y)) {
+            return null;
+        }
+        return bodies[owners[x * grid.getHeight() + y] - 1];
+    }
+
+    @Override
+    public void forEachBuiltTile(Consumer<TileBody> consumer) {
+        for (TileBody body : bodies) {
+            consumer.accept(body);
+        }
+    }
+}
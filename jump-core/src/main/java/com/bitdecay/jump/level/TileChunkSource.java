@@ -0,0 +1,17 @@
+package com.bitdecay.jump.level;
+
+/**
+ * Supplies the tiles of a {@link ChunkedTileGrid} one chunk at a time. Chunks are usually
+ * asked for from a background thread, so implementations must be safe to call from one.
+ */
+public interface TileChunkSource {
+    /**
+     * Fills in the tiles of a chunk
+     * @param chunkX the chunk column, counted in chunks from the grid offset
+     * @param chunkY the chunk row, counted in chunks from the grid offset
+     * @param chunk an empty grid of {@link ChunkedTileGrid#CHUNK_SIZE} cells a side to fill in,
+     *              in cells local to the chunk
+     * @return false if the chunk has no tiles at all
+     */
+    boolean fillChunk(int chunkX, int chunkY, TileGrid chunk);
+}
@@ -0,0 +1,339 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.CellRange;
+import com.bitdecay.jump.geom.GeomUtils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The collision layer of a level's tiles. Each cell only keeps its neighbor value,
+ * material and one-way axis in packed arrays, and cell bounds come straight from the
+ * cell coordinates and tile size.<br>
+ * <br>
+ * A {@link TileBody} is only built for a cell once something needs one, usually because
+ * a body came close enough to collide with it. From then on the same body is handed out
+ * for that cell, so contacts and listeners see a stable object, until
+ * {@link #releaseTiles(Iterable, Consumer)} lets go of it once nothing is near. Building is
+ * safe to do from several threads at once.
+ */
+public class TileGrid implements TileLayer {
+    private static final byte SOLID = 1;
+    private static final int AXIS_SHIFT = 1;
+    private static final int AXIS_MASK = 0x7;
+    private static final BitPoint[] AXES = {null, GeomUtils.Y_AXIS, GeomUtils.NEG_Y_AXIS, GeomUtils.X_AXIS, GeomUtils.NEG_X_AXIS};
+
+    /**
+     * Built tile bodies are kept in square blocks of this many cells a side, and a block
+     * is only allocated once one of its tiles is built
+     */
+    private static final int BLOCK_SHIFT = 5;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final BitPointInt offset;
+
+    private final byte[] flags;
+    private final byte[] nValues;
+    private final short[] materials;
+
+    private final int blocksHigh;
+    private final AtomicReferenceArray<AtomicReferenceArray<TileBody>> blocks;
+
+    private final long[] blockWanted;
+    private long releases;
+    private final CellRange releaseCells = new CellRange();
+
+    /**
+     * @param width cells across
+     * @param height cells up
+     * @param tileSize the size of a single cell
+     * @param offset the grid offset, in cells
+     */
+    public TileGrid(int width, int height, int tileSize, BitPointInt offset) {
+        this(width, height, tileSize, offset, new byte[cellCount(width, height)], new byte[width * height], new short[width * height]);
+    }
+
+    /**
+     * Wraps already packed cell arrays, in the same layout this grid keeps them in
+     */
+    TileGrid(int width, int height, int tileSize, BitPointInt offset, byte[] flags, byte[] nValues, short[] materials) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.offset = new BitPointInt(offset.x, offset.y);
+        this.flags = flags;
+        this.nValues = nValues;
+        this.materials = materials;
+        blocksHigh = (height + BLOCK_MASK) >> BLOCK_SHIFT;
+        blocks = new AtomicReferenceArray<>(((width + BLOCK_MASK) >> BLOCK_SHIFT) * blocksHigh);
+        blockWanted = new long[blocks.length()];
+    }
+
+    /**
+     * Builds the collision layer for the given tiles. Tiles are placed by where they sit
+     * in the array, not by their own rectangles.
+     */
+    public static TileGrid fromObjects(TileObject[][] grid, int tileSize, BitPointInt offset) {
+        TileGrid tiles = new TileGrid(grid.length, grid.length == 0 ? 0 : grid[0].length, tileSize, offset);
+        for (int x = 0; x < tiles.width; x++) {
+            for (int y = 0; y < tiles.height; y++) {
+                TileObject object = grid[x][y];
+                if (object != null) {
+                    tiles.set(x, y, object.collideNValue, object.material, object.oneway ? GeomUtils.Y_AXIS : null);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Fills in a cell. Meant for building the grid, before any of its tiles are built.
+     * @param nValue which neighbors are present, see {@link Direction}
+     * @param material
+     * @param collisionAxis the only axis the tile can be collided from, or null. Must be
+     *                      one of the axes in {@link GeomUtils}.
+     */
+    public void set(int x, int y, int nValue, int material, BitPoint collisionAxis) {
+        if (material < Short.MIN_VALUE || material > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Material does not fit in a tile grid: " + material);
+        }
+        int axis = axisCode(collisionAxis);
+        int index = index(x, y);
+        flags[index] = (byte) (SOLID | axis << AXIS_SHIFT);
+        nValues[index] = (byte) nValue;
+        materials[index] = (short) material;
+    }
+
+    /**
+     * Fills in a cell from its packed flags, as returned by {@link #getFlags(int, int)}
+     */
+    void setPacked(int x, int y, byte cellFlags, byte nValue, short material) {
+        if (!isValidFlags(cellFlags)) {
+            throw new IllegalArgumentException("Unknown tile flags: " + cellFlags);
+        }
+        int index = index(x, y);
+        flags[index] = cellFlags;
+        nValues[index] = nValue;
+        materials[index] = material;
+    }
+
+    /**
+     * @return the packed solid and collision axis flags of the given cell
+     */
+    byte getFlags(int x, int y) {
+        return flags[index(x, y)];
+    }
+
+    public void clear(int x, int y) {
+        int index = index(x, y);
+        flags[index] = 0;
+        nValues[index] = 0;
+        materials[index] = 0;
+    }
+
+    public boolean onGrid(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * @return true if there is a tile in the given cell. Cells off the grid are empty.
+     */
+    @Override
+    public boolean isSolid(int x, int y) {
+        return onGrid(x, y) && (flags[index(x, y)] & SOLID) != 0;
+    }
+
+    @Override
+    public int getNValue(int x, int y) {
+        return nValues[index(x, y)];
+    }
+
+    @Override
+    public int getMaterial(int x, int y) {
+        return materials[index(x, y)];
+    }
+
+    /**
+     * @return the only axis the tile in the given cell can be collided from, or null
+     */
+    @Override
+    public BitPoint getCollisionAxis(int x, int y) {
+        return axisOf(flags[index(x, y)]);
+    }
+
+    /**
+     * @return the body for the tile in the given cell, building it if this is the first
+     * time it is asked for. Null if the cell is empty or off the grid.
+     */
+    @Override
+    public TileBody getTile(int x, int y) {
+        if (!isSolid(x, y)) {
+            return null;
+        }
+        int blockIndex = (x >> BLOCK_SHIFT) * blocksHigh + (y >> BLOCK_SHIFT);
+        AtomicReferenceArray<TileBody> block = blocks.get(blockIndex);
+        if (block == null) {
+            blocks.compareAndSet(blockIndex, null, new AtomicReferenceArray<>(BLOCK_SIZE * BLOCK_SIZE));
+            block = blocks.get(blockIndex);
+        }
+        int cell = (x & BLOCK_MASK) << BLOCK_SHIFT | (y & BLOCK_MASK);
+        TileBody tile = block.get(cell);
+        if (tile == null) {
+            // if another thread builds it first, everyone uses theirs
+            block.compareAndSet(cell, null, buildTile(x, y));
+            tile = block.get(cell);
+        }
+        return tile;
+    }
+
+    /**
+     * Calls the given consumer with every tile body that has been built so far
+     */
+    @Override
+    public void forEachBuiltTile(Consumer<TileBody> consumer) {
+        for (int i = 0; i < blocks.length(); i++) {
+            AtomicReferenceArray<TileBody> block = blocks.get(i);
+            if (block != null) {
+                for (int j = 0; j < block.length(); j++) {
+                    TileBody tile = block.get(j);
+                    if (tile != null) {
+                        consumer.accept(tile);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets go of the built tile bodies of every block that none of the given areas come
+     * within a cell of, so only tiles near something stay built. A tile asked for again
+     * later gets a new body. Only call this while nothing else is reading from the grid.
+     * @param areas the parts of the world, in world units, whose tiles should be kept
+     * @param released called with each tile body that is let go of
+     */
+    public void releaseTiles(Iterable<BitRectangle> areas, Consumer<TileBody> released) {
+        releases++;
+        for (BitRectangle area : areas) {
+            releaseCells.set(area, tileSize, offset);
+            int startX = Math.max(0, releaseCells.startX - 1);
+            int startY = Math.max(0, releaseCells.startY - 1);
+            int endX = Math.min(width - 1, releaseCells.endX + 1);
+            int endY = Math.min(height - 1, releaseCells.endY + 1);
+            if (startX > endX || startY > endY) {
+                // nowhere near the grid
+                continue;
+            }
+            for (int blockX = startX >> BLOCK_SHIFT; blockX <= endX >> BLOCK_SHIFT; blockX++) {
+                for (int blockY = startY >> BLOCK_SHIFT; blockY <= endY >> BLOCK_SHIFT; blockY++) {
+                    blockWanted[blockX * blocksHigh + blockY] = releases;
+                }
+            }
+        }
+
+        for (int i = 0; i < blocks.length(); i++) {
+            AtomicReferenceArray<TileBody> block = blocks.get(i);
+            if (block != null && blockWanted[i] != releases) {
+                for (int j = 0; j < block.length(); j++) {
+                    TileBody tile = block.get(j);
+                    if (tile != null) {
+                        released.accept(tile);
+                    }
+                }
+                blocks.set(i, null);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return the grid offset, in cells
+     */
+    @Override
+    public BitPointInt getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the world position of the left edge of the given column
+     */
+    public float cellX(int x) {
+        return (offset.x + x) * tileSize;
+    }
+
+    /**
+     * @return the world position of the bottom edge of the given row
+     */
+    public float cellY(int y) {
+        return (offset.y + y) * tileSize;
+    }
+
+    private TileBody buildTile(int x, int y) {
+        TileBody body = new TileBody();
+        body.material = getMaterial(x, y);
+        body.aabb = new BitRectangle(cellX(x), cellY(y), tileSize, tileSize);
+        body.nValue = getNValue(x, y);
+        body.bodyType = BodyType.STATIC;
+        body.collisionAxis = getCollisionAxis(x, y);
+        return body;
+    }
+
+    private int index(int x, int y) {
+        if (!onGrid(x, y)) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is not on a " + width + "x" + height + " grid");
+        }
+        return x * height + y;
+    }
+
+    /**
+     * @return true if the packed flags only use bits and collision axes this grid knows about
+     */
+    static boolean isValidFlags(byte cellFlags) {
+        return (cellFlags & ~(SOLID | AXIS_MASK << AXIS_SHIFT)) == 0 && ((cellFlags >> AXIS_SHIFT) & AXIS_MASK) < AXES.length;
+    }
+
+    /**
+     * @return the collision axis of the given packed flags
+     */
+    static BitPoint axisOf(byte cellFlags) {
+        return AXES[(cellFlags >> AXIS_SHIFT) & AXIS_MASK];
+    }
+
+    private static int cellCount(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Grid size can not be negative: " + width + "x" + height);
+        }
+        return width * height;
+    }
+
+    private static int axisCode(BitPoint axis) {
+        if (axis == null) {
+            return 0;
+        }
+        for (int i = 1; i < AXES.length; i++) {
+            if (AXES[i].equals(axis)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Tiles can only be one-way along a grid axis: " + axis);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+
+import java.util.function.Consumer;
+
+/**
+ * The tiles a world collides against, looked up by cell. Cells are counted from the
+ * layer's offset, so the cell (x, y) covers the world from
+ * ((offset.x + x) * tileSize, (offset.y + y) * tileSize) to one tile size further.
+ */
+public interface TileLayer {
+    int getTileSize();
+
+    /**
+     * @return the grid offset, in cells
+     */
+    BitPointInt getOffset();
+
+    /**
+     * @return true if there is a tile in the given cell
+     */
+    boolean isSolid(int x, int y);
+
+    /**
+     * @return which neighbors of the tile in the given cell are present, see {@link Direction}.
+     * Only meaningful for solid cells.
+     */
+    int getNValue(int x, int y);
+
+    /**
+     * Only meaningful for solid cells
+     */
+    int getMaterial(int x, int y);
+
+    /**
+     * @return the only axis the tile in the given cell can be collided from, or null.
+     * Only meaningful for solid cells.
+     */
+    BitPoint getCollisionAxis(int x, int y);
+
+    /**
+     * @return the body for the tile in the given cell, the same one every time it is
+     * asked for while the layer holds on to it. Null if the cell is empty.
+     */
+    TileBody getTile(int x, int y);
+
+    /**
+     * Calls the given consumer with every tile body that has been handed out so far
+     */
+    void forEachBuiltTile(Consumer<TileBody> consumer);
+}
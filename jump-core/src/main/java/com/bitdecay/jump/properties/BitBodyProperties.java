@@ -1,5 +1,6 @@
 package com.bitdecay.jump.properties;
 
+import com.bitdecay.jump.annotation.CantInspect;
 import com.bitdecay.jump.annotation.ValueRange;
 import com.bitdecay.jump.geom.BitPoint;
 
@@ -11,6 +12,26 @@ public class BitBodyProperties {
 
     public boolean collides = true;
 
+    /**
+     * Bits naming what kind of body this is, for {@link #collisionMask} of other bodies
+     * to match against
+     */
+    @CantInspect
+    public int collisionCategory = 0x0001;
+
+    /**
+     * Bits of the categories this body can collide with. Two bodies are only paired if
+     * each one's category is in the other's mask.
+     */
+    @CantInspect
+    public int collisionMask = 0xFFFFFFFF;
+
+    /**
+     * Flag for a body that reports contacts but never resolves against anything, nor
+     * has anything resolve against it
+     */
+    public boolean sensor = false;
+
     /**
      * Flag dictating if conflicting resolutions will deactive the body
      */
@@ -45,6 +66,20 @@ public class BitBodyProperties {
      */
     public int maxVoluntarySpeed = 300;
 
+    /**
+     * How many of the world's internal steps go by between updates of this body. Each
+     * update covers all the time since the last one, and in between the body holds still
+     * and is collided against like a static obstacle. Bodies moving fast enough to pass
+     * through a tile in one update are still updated every step.
+     */
+    @ValueRange(min = 1, max = 16)
+    public int stepDivisor = 1;
+
+    /**
+     * Flag for whether the world may put this body to sleep once it comes to rest
+     */
+    public boolean canSleep = true;
+
     /**
      * A flag for whether or not gravity should affect this body
      */
@@ -84,4 +84,18 @@ public class BitCollisionTest {
         assertTrue(againstKinetic.compareTo(againstStatic) < 0);
         assertTrue(againstKinetic.compareTo(againstKinetic) == 0);
     }
+
+    @Test
+    public void testCanBeIgnoredReturnsTrueForSensors() {
+        BitBody bodyOne = new BitBody();
+        BitBody bodyTwo = new BitBody();
+        BitCollision col = new BitCollision(bodyOne, bodyTwo);
+
+        bodyOne.props.sensor = true;
+        assertTrue(col.canBeIgnored());
+
+        bodyOne.props.sensor = false;
+        bodyTwo.props.sensor = true;
+        assertTrue(col.canBeIgnored());
+    }
 }
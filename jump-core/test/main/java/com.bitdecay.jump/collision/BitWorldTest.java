@@ -0,0 +1,579 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.level.ChunkedTileGrid;
+import com.bitdecay.jump.level.Direction;
+import com.bitdecay.jump.level.Level;
+import com.bitdecay.jump.level.TileBody;
+import com.bitdecay.jump.level.TileObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class BitWorldTest {
+    private static final int TILE_SIZE = 16;
+    private static final int LEVEL_WIDTH = 40;
+    private static final int LEVEL_HEIGHT = 20;
+
+    private ForkJoinPool pool;
+
+    @After
+    public void cleanup() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelStepMatchesSerial() {
+        pool = new ForkJoinPool(4);
+        assertSameSimulation(world -> world.setParallelPool(pool));
+    }
+
+    @Test
+    public void testSkippingUnchangedBodiesMatchesCheckingAll() {
+        assertSameSimulation(world -> world.setAlwaysCheckAllBodies(true));
+    }
+
+    @Test
+    public void testMergedTilesMatchSingleTiles() {
+        assertSameSimulation(world -> {
+            world.setMergeTiles(true);
+            world.setLevel(buildLevel());
+        });
+    }
+
+    @Test
+    public void testStreamedTilesMatchDense() {
+        assertSameSimulation(world -> world.setTiles(ChunkedTileGrid.fromLevel(buildLevel())));
+    }
+
+    @Test
+    public void testStreamedTilesLoadAheadOfFastBodies() {
+        // a floor along the top of chunk (0, 0), with nothing loaded in the background
+        ChunkedTileGrid chunked = new ChunkedTileGrid((chunkX, chunkY, chunk) -> {
+            if (chunkX != 0 || chunkY != 0) {
+                return false;
+            }
+            for (int x = 0; x < ChunkedTileGrid.CHUNK_SIZE; x++) {
+                chunk.set(x, ChunkedTileGrid.CHUNK_SIZE - 1, Direction.SIDES, 0, null);
+            }
+            return true;
+        }, TILE_SIZE, new BitPointInt(0, 0));
+        chunked.setPreloadChunks(0);
+        BitWorld world = new BitWorld();
+        world.setTiles(chunked);
+        world.setGravity(0, -900);
+
+        // starts in the chunk above, and crosses in to the floor's chunk during the first step
+        float floorTop = ChunkedTileGrid.CHUNK_SIZE * TILE_SIZE;
+        BitBody body = new BitBody();
+        body.bodyType = BodyType.DYNAMIC;
+        body.aabb = new BitRectangle(5 * TILE_SIZE, floorTop + 1, 8, 8);
+        body.velocity.set(0, -1000);
+        world.addBody(body);
+        world.step(BitWorld.STEP_SIZE * 1.01f);
+        assertTrue(body.grounded);
+        assertEquals(floorTop, body.aabb.xy.y, 0.01f);
+
+        world.setLevel(buildLevel());
+        assertTrue("The replaced grid was closed", chunked.isClosed());
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testIterationMetrics() {
+        BitWorld world = buildWorld(new ArrayList<>());
+        int totalExamined = 0;
+        for (int i = 0; i < 120; i++) {
+            world.step(BitWorld.STEP_SIZE * 1.5f);
+            assertTrue(world.getResolutionIterations() >= 1);
+            assertTrue(world.getResolutionIterations() <= BitWorld.MAX_RESOLUTION_ITERATIONS);
+            assertTrue(world.getBodiesExamined() >= world.getDynamicBodies().size());
+            totalExamined += world.getBodiesExamined();
+        }
+        world.setGravity(0, 0);
+
+        assertTrue(world.getPeakResolutionIterations() > 1);
+        assertTrue(totalExamined > 0);
+        world.resetStepMetrics();
+        assertEquals(0, world.getPeakResolutionIterations());
+        assertEquals(0, world.getIterationLimitHits());
+    }
+
+    @Test
+    public void testRestingContactDoesNotFlicker() {
+        BitWorld world = buildWorld(new ArrayList<>());
+        BitBody resting = new BitBody();
+        resting.bodyType = BodyType.DYNAMIC;
+        resting.aabb = new BitRectangle(20 * TILE_SIZE, TILE_SIZE + 4, 8, 8);
+        int[] counts = new int[3];
+        resting.addContactListener(new ContactAdapter() {
+            @Override
+            public void contactStarted(BitBody other) {
+                if (other instanceof TileBody) {
+                    counts[0]++;
+                }
+            }
+
+            @Override
+            public void contact(BitBody other) {
+                if (other instanceof TileBody) {
+                    counts[1]++;
+                }
+            }
+
+            @Override
+            public void contactEnded(BitBody other) {
+                if (other instanceof TileBody) {
+                    counts[2]++;
+                }
+            }
+        });
+        world.addBody(resting);
+
+        for (int i = 0; i < 240; i++) {
+            world.step(BitWorld.STEP_SIZE);
+        }
+        world.setGravity(0, 0);
+
+        assertEquals("Lands on the floor once", 1, counts[0]);
+        assertTrue(counts[1] > 200);
+        assertEquals(0, counts[2]);
+    }
+
+    @Test
+    public void testContactEventsOnCallingThread() {
+        assertContactsPerStep(false);
+        assertContactsPerStep(true);
+    }
+
+    @Test
+    public void testMaskedBodyIsNeverPaired() {
+        BitWorld world = buildWorld(new ArrayList<>());
+        BitBody ghost = dropOnFloor(world);
+        ghost.props.collisionMask = ~0x1;
+        int[] contacts = countTileContacts(ghost);
+
+        for (int i = 0; i < 60; i++) {
+            world.step(BitWorld.STEP_SIZE);
+        }
+        world.setGravity(0, 0);
+        assertTrue("Falls through the floor", ghost.aabb.xy.y < 0);
+        assertEquals(0, contacts[0]);
+    }
+
+    @Test
+    public void testSensorReportsWithoutResolving() {
+        BitWorld world = buildWorld(new ArrayList<>());
+        BitBody sensor = dropOnFloor(world);
+        sensor.props.sensor = true;
+        int[] contacts = countTileContacts(sensor);
+
+        for (int i = 0; i < 60; i++) {
+            world.step(BitWorld.STEP_SIZE);
+        }
+        world.setGravity(0, 0);
+        assertTrue("Falls through the floor", sensor.aabb.xy.y < 0);
+        assertTrue(contacts[0] > 0);
+    }
+
+    @Test
+    public void testRestingBodyFallsAsleep() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setSleepDelay(0.25f);
+        BitBody body = dropOnFloor(world);
+        stepFor(world, 0.5f);
+        assertTrue(body.isSleeping());
+        assertTrue(body.grounded);
+
+        float y = body.aabb.xy.y;
+        stepFor(world, 0.5f);
+        assertTrue(body.isSleeping());
+        assertEquals(y, body.aabb.xy.y, 0);
+
+        assertTrue(body.getRestingTime() >= 0.25f);
+        body.setVelocity(100, 0);
+        assertFalse(body.isSleeping());
+        assertEquals(0, body.getRestingTime(), 0);
+        stepFor(world, 0.1f);
+        assertTrue("Moves again once woken", body.aabb.xy.x > 20 * TILE_SIZE);
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testBusyBodyStaysAwake() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setSleepDelay(0.25f);
+        BitBody sliding = dropOnFloor(world);
+        sliding.velocity.x = 20;
+        BitBody steady = dropOnFloor(world);
+        steady.aabb.xy.x = 10 * TILE_SIZE;
+        steady.props.canSleep = false;
+        stepFor(world, 1);
+        assertFalse(sliding.isSleeping());
+        assertFalse(steady.isSleeping());
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testKineticBodyWakesSleeper() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setSleepDelay(0.25f);
+        BitBody sleeper = dropOnFloor(world);
+        BitBody platform = new BitBody();
+        platform.bodyType = BodyType.KINETIC;
+        platform.aabb = new BitRectangle(10 * TILE_SIZE, TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        world.addBody(platform);
+        stepFor(world, 0.5f);
+        assertTrue(sleeper.isSleeping());
+
+        // a kinetic body sliding in to it
+        platform.velocity.set(200, 0);
+        stepFor(world, 0.75f);
+        assertFalse(sleeper.isSleeping());
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testFallingBodyWakesSleeper() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setSleepDelay(0.25f);
+        BitBody sleeper = dropOnFloor(world);
+        stepFor(world, 0.5f);
+        assertTrue(sleeper.isSleeping());
+
+        BitBody falling = dropOnFloor(world);
+        falling.aabb.xy.y = 5 * TILE_SIZE;
+        boolean woken = false;
+        for (int i = 0; i < 64; i++) {
+            world.step(BitWorld.STEP_SIZE);
+            woken |= !sleeper.isSleeping();
+        }
+        assertTrue(woken);
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testFrozenOutsideActivity() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        BitBody inside = dropOnFloor(world);
+        inside.aabb.xy.set(5 * TILE_SIZE, 10 * TILE_SIZE);
+        BitBody outside = dropOnFloor(world);
+        outside.aabb.xy.set(30 * TILE_SIZE, 10 * TILE_SIZE);
+        List<String> events = new ArrayList<>();
+        world.addActivityListener(new ActivityListener() {
+            @Override
+            public void enteredActivity(BitBody body) {
+                events.add((body == outside ? "outside" : "inside") + " entered");
+            }
+
+            @Override
+            public void leftActivity(BitBody body) {
+                events.add((body == outside ? "outside" : "inside") + " left");
+            }
+        });
+        BitRectangle region = new BitRectangle(0, 0, 15 * TILE_SIZE, 20 * TILE_SIZE);
+        world.addActivityRegion(region);
+
+        stepFor(world, 0.5f);
+        assertTrue(inside.grounded);
+        assertFalse(inside.isOutsideActivity());
+        assertTrue(outside.isOutsideActivity());
+        assertEquals(10 * TILE_SIZE, outside.aabb.xy.y, 0);
+        assertEquals(Arrays.asList("outside left"), events);
+
+        // regions can be moved around
+        events.clear();
+        region.xy.x = 20 * TILE_SIZE;
+        stepFor(world, 0.5f);
+        assertTrue(outside.grounded);
+        assertEquals(Arrays.asList("inside left", "outside entered"), events);
+
+        events.clear();
+        world.clearActivityRegions();
+        world.step(BitWorld.STEP_SIZE * 1.5f);
+        assertEquals(Arrays.asList("inside entered"), events);
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testReducedRateOutsideActivity() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setInactiveStepInterval(4);
+        world.addActivityRegion(new BitRectangle(0, 0, TILE_SIZE, TILE_SIZE));
+        BitBody full = dropOnFloor(world);
+        full.aabb.xy.set(10 * TILE_SIZE, 10 * TILE_SIZE);
+        full.velocity.set(0, 0);
+        BitBody reduced = dropOnFloor(world);
+        reduced.aabb.xy.set(30 * TILE_SIZE, 10 * TILE_SIZE);
+        reduced.velocity.set(0, 0);
+        world.addActivityRegion(new BitRectangle(10 * TILE_SIZE, 0, TILE_SIZE, 20 * TILE_SIZE));
+
+        int skipped = 0;
+        for (int i = 0; i < 256; i++) {
+            world.step(BitWorld.STEP_SIZE * 1.01f);
+            if (reduced.getStepState().getStepSpan() == 0) {
+                skipped++;
+            }
+        }
+        assertTrue("Sits out most steps", skipped > 100);
+        assertTrue(reduced.grounded);
+        assertEquals("Lands on the floor like a fully updated body", full.aabb.xy.y, reduced.aabb.xy.y, 0.5f);
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testStepRate() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        assertEquals(BitWorld.STEP_PER_SEC, world.getStepRate(), 0);
+        world.setStepRate(256);
+        assertEquals(1 / 256f, world.getStepSize(), 0);
+
+        BitBody body = dropOnFloor(world);
+        float startY = body.aabb.xy.y;
+        world.step(world.getStepSize() * 1.01f);
+        assertEquals("Moves for a single step at the new rate", startY - 200 / 256f, body.aabb.xy.y, 0.1f);
+        stepFor(world, 1);
+        assertTrue(body.grounded);
+        assertEquals(TILE_SIZE, body.aabb.xy.y, 0.5f);
+
+        try {
+            world.setStepRate(0);
+            fail("Step rate must be positive");
+        } catch (IllegalArgumentException expected) {
+        }
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testStepDivisor() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        BitBody full = dropOnFloor(world);
+        full.aabb.xy.x = 10 * TILE_SIZE;
+        BitBody divided = dropOnFloor(world);
+        divided.props.stepDivisor = 4;
+
+        int skipped = 0;
+        for (int i = 0; i < 256; i++) {
+            world.step(BitWorld.STEP_SIZE * 1.01f);
+            if (divided.getStepState().getStepSpan() == 0) {
+                skipped++;
+            }
+        }
+        assertTrue("Sits out most steps", skipped > 100);
+        assertTrue(divided.grounded);
+        assertEquals("Lands on the floor like a fully updated body", full.aabb.xy.y, divided.aabb.xy.y, 0.5f);
+
+        // a platform sitting steps out still holds up what lands on it, and covers the same distance
+        BitBody platform = new BitBody();
+        platform.bodyType = BodyType.KINETIC;
+        platform.aabb = new BitRectangle(30 * TILE_SIZE, 5 * TILE_SIZE, 32, 8);
+        platform.velocity.set(16, 0);
+        platform.props.stepDivisor = 4;
+        world.addBody(platform);
+        BitBody rider = dropOnFloor(world);
+        rider.aabb.xy.set(30 * TILE_SIZE + 8, 5 * TILE_SIZE + 12);
+        stepFor(world, 1);
+        assertEquals(30 * TILE_SIZE + 16, platform.aabb.xy.x, 0.5f);
+        assertEquals(platform.aabb.xy.y + platform.aabb.height, rider.aabb.xy.y, 0.5f);
+        world.setGravity(0, 0);
+    }
+
+    @Test
+    public void testStepSpansCoverEveryStep() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        world.setGravity(0, 0);
+        List<BitBody> bodies = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            BitBody body = dropOnFloor(world);
+            body.aabb.xy.x = (2 + i * 3) * TILE_SIZE;
+            body.velocity.set(0, 0);
+            body.props.stepDivisor = 3;
+            bodies.add(body);
+        }
+        int[] covered = new int[bodies.size()];
+        for (int step = 0; step < 60; step++) {
+            if (step == 20) {
+                // shifts every body after it in the world's list
+                world.removeBody(bodies.get(0));
+            }
+            if (step == 31) {
+                bodies.get(2).props.stepDivisor = 5;
+            }
+            world.step(BitWorld.STEP_SIZE * 1.01f);
+            for (int i = 1; i < bodies.size(); i++) {
+                covered[i] += bodies.get(i).getStepState().getStepSpan();
+            }
+        }
+        for (int i = 1; i < bodies.size(); i++) {
+            assertEquals("Every step is covered exactly once", 60, covered[i] + bodies.get(i).getStepState().getStepsSinceUpdate());
+        }
+    }
+
+    @Test
+    public void testSleepingDisabledByDefault() {
+        BitWorld world = buildWorld(new ArrayList<>(), 0);
+        BitBody body = dropOnFloor(world);
+        stepFor(world, 1);
+        assertFalse(body.isSleeping());
+        world.setGravity(0, 0);
+    }
+
+    private void stepFor(BitWorld world, float seconds) {
+        for (float time = 0; time < seconds; time += BitWorld.STEP_SIZE) {
+            world.step(BitWorld.STEP_SIZE);
+        }
+    }
+
+    private BitBody dropOnFloor(BitWorld world) {
+        BitBody body = new BitBody();
+        body.bodyType = BodyType.DYNAMIC;
+        body.aabb = new BitRectangle(20 * TILE_SIZE, TILE_SIZE + 2, 8, 8);
+        body.velocity.set(0, -200);
+        world.addBody(body);
+        return body;
+    }
+
+    private int[] countTileContacts(BitBody body) {
+        int[] contacts = new int[1];
+        body.addContactListener(new ContactAdapter() {
+            @Override
+            public void contactStarted(BitBody other) {
+                if (other instanceof TileBody) {
+                    contacts[0]++;
+                }
+            }
+        });
+        return contacts;
+    }
+
+    private void assertContactsPerStep(boolean coalesce) {
+        BitWorld world = buildWorld(new ArrayList<>());
+        world.setCoalesceContactEvents(coalesce);
+        BitBody resting = new BitBody();
+        resting.bodyType = BodyType.DYNAMIC;
+        resting.aabb = new BitRectangle(20 * TILE_SIZE, TILE_SIZE, 8, 8);
+        Thread caller = Thread.currentThread();
+        int[] contacts = new int[1];
+        resting.addContactListener(new ContactAdapter() {
+            @Override
+            public void contact(BitBody other) {
+                assertTrue(Thread.currentThread() == caller);
+                if (other instanceof TileBody) {
+                    contacts[0]++;
+                }
+            }
+        });
+        world.addBody(resting);
+        world.step(BitWorld.STEP_SIZE * 1.5f);
+
+        // several internal steps per call
+        for (int i = 0; i < 10; i++) {
+            contacts[0] = 0;
+            world.step(BitWorld.STEP_SIZE * 4.5f);
+            if (coalesce) {
+                assertEquals(1, contacts[0]);
+            } else {
+                // leftover time sometimes makes room for a fifth
+                assertTrue(contacts[0] == 4 || contacts[0] == 5);
+            }
+        }
+        world.setGravity(0, 0);
+    }
+
+    private void assertSameSimulation(Consumer<BitWorld> setup) {
+        List<BitBody> serialBodies = new ArrayList<>();
+        BitWorld serial = buildWorld(serialBodies);
+
+        List<BitBody> otherBodies = new ArrayList<>();
+        BitWorld other = buildWorld(otherBodies);
+        setup.accept(other);
+
+        for (int i = 0; i < 240; i++) {
+            serial.step(BitWorld.STEP_SIZE * 1.5f);
+            other.step(BitWorld.STEP_SIZE * 1.5f);
+        }
+        serial.setGravity(0, 0);
+
+        for (int i = 0; i < serialBodies.size(); i++) {
+            assertEquals(serialBodies.get(i).aabb.xy, otherBodies.get(i).aabb.xy);
+            assertEquals(serialBodies.get(i).velocity, otherBodies.get(i).velocity);
+            assertEquals(serialBodies.get(i).grounded, otherBodies.get(i).grounded);
+        }
+    }
+
+    /**
+     * A walled box with a floating platform and a pile of bodies falling into it
+     */
+    static BitWorld buildWorld(List<BitBody> bodies) {
+        return buildWorld(bodies, 60);
+    }
+
+    static BitWorld buildWorld(List<BitBody> bodies, int bodyCount) {
+        BitWorld world = new BitWorld();
+        world.setLevel(buildLevel());
+        world.setGravity(0, -900);
+
+        Random random = new Random(5);
+        for (int i = 0; i < bodyCount; i++) {
+            BitBody body = new BitBody();
+            body.bodyType = BodyType.DYNAMIC;
+            body.aabb = new BitRectangle(TILE_SIZE + random.nextFloat() * (LEVEL_WIDTH - 3) * TILE_SIZE, TILE_SIZE + random.nextFloat() * (LEVEL_HEIGHT - 3) * TILE_SIZE, 6 + random.nextInt(8), 6 + random.nextInt(8));
+            body.velocity.set(random.nextFloat() * 300 - 150, random.nextFloat() * 300 - 150);
+            bodies.add(body);
+            world.addBody(body);
+        }
+        return world;
+    }
+
+    static Level buildLevel() {
+        int width = LEVEL_WIDTH;
+        int height = LEVEL_HEIGHT;
+        Level level = new Level(TILE_SIZE);
+        level.gridOffset = new BitPointInt(0, 0);
+        level.gridObjects = new TileObject[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean solid = y == 0 || x == 0 || x == width - 1 || (y == 6 && x > 10 && x < 25);
+                if (solid) {
+                    level.gridObjects[x][y] = new TileObject(new BitRectangle(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE), false, 0);
+                }
+            }
+        }
+        // tiles don't collide on edges that are covered by a neighboring tile
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (level.gridObjects[x][y] != null) {
+                    int neighbors = 0;
+                    if (y + 1 < height && level.gridObjects[x][y + 1] != null) {
+                        neighbors |= Direction.UP;
+                    }
+                    if (y > 0 && level.gridObjects[x][y - 1] != null) {
+                        neighbors |= Direction.DOWN;
+                    }
+                    if (x + 1 < width && level.gridObjects[x + 1][y] != null) {
+                        neighbors |= Direction.RIGHT;
+                    }
+                    if (x > 0 && level.gridObjects[x - 1][y] != null) {
+                        neighbors |= Direction.LEFT;
+                    }
+                    level.gridObjects[x][y].collideNValue = neighbors;
+                }
+            }
+        }
+
+        return level;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Rough comparison of the broadphase implementations. Not a unit test; run the main
+ * method directly.<br>
+ * <br>
+ * Each scenario mimics a wide level where most bodies are small and a few long kinetic
+ * platforms sweep back and forth. In the clustered scenario the bodies are packed into
+ * a handful of areas; in the sparse one they are spread over the whole level. Every
+ * simulated step moves the dynamic and kinetic bodies, updates them in the
+ * broadphase and queries it once for every dynamic body, the same as
+ * {@link BitWorld} does.
+ */
+public class BroadphaseBenchmark {
+    private static final int TILE_SIZE = 16;
+    private static final int LEVEL_WIDTH = 2000 * TILE_SIZE;
+    private static final int WARMUP_STEPS = 200;
+    private static final int MEASURED_STEPS = 500;
+
+    public static void main(String[] args) {
+        int[] bodyCounts = {100, 1000, 10000};
+        System.out.println(String.format("%-10s %8s %-26s %14s %14s", "layout", "bodies", "broadphase", "us/step", "pairs/step"));
+        for (boolean clustered : new boolean[]{true, false}) {
+            for (int bodyCount : bodyCounts) {
+                run(bodyCount, clustered, "SpatialHashBroadphase", SpatialHashBroadphase::new);
+                run(bodyCount, clustered, "SweepAndPruneBroadphase", SweepAndPruneBroadphase::new);
+            }
+        }
+    }
+
+    private static void run(int bodyCount, boolean clustered, String name, Supplier<Broadphase> factory) {
+        List<BitBody> bodies = buildBodies(bodyCount, clustered);
+        Broadphase broadphase = factory.get();
+        broadphase.configure(TILE_SIZE, new BitPointInt(0, 0));
+        bodies.forEach(broadphase::add);
+
+        long[] pairs = new long[1];
+        BroadphaseCallback counter = (body, other) -> pairs[0]++;
+
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            step(bodies, broadphase, counter, i);
+        }
+        pairs[0] = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_STEPS; i++) {
+            step(bodies, broadphase, counter, WARMUP_STEPS + i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-10s %8d %-26s %14.1f %14d", clustered ? "clustered" : "sparse", bodyCount, name, elapsed / 1000.0 / MEASURED_STEPS, pairs[0] / MEASURED_STEPS));
+    }
+
+    private static void step(List<BitBody> bodies, Broadphase broadphase, BroadphaseCallback counter, int stepNumber) {
+        for (BitBody body : bodies) {
+            if (BodyType.STATIC.equals(body.bodyType)) {
+                continue;
+            }
+            if (BodyType.KINETIC.equals(body.bodyType) && stepNumber % 256 == 0) {
+                body.velocity.x *= -1;
+            }
+            body.aabb.translate(body.velocity.x * BitWorld.STEP_SIZE, body.velocity.y * BitWorld.STEP_SIZE);
+            broadphase.update(body);
+        }
+        for (BitBody body : bodies) {
+            if (BodyType.DYNAMIC.equals(body.bodyType)) {
+                broadphase.query(body, counter);
+            }
+        }
+    }
+
+    private static List<BitBody> buildBodies(int bodyCount, boolean clustered) {
+        Random random = new Random(1234);
+        List<BitBody> bodies = new ArrayList<>();
+        int clusters = clustered ? 8 : 1;
+        float clusterWidth = clustered ? 60 * TILE_SIZE : LEVEL_WIDTH;
+        for (int i = 0; i < bodyCount; i++) {
+            BitBody body = new BitBody();
+            float clusterX = (i % clusters) * (LEVEL_WIDTH / clusters);
+            if (i % 50 == 0) {
+                // a long moving platform
+                body.bodyType = BodyType.KINETIC;
+                body.aabb = new BitRectangle(clusterX + random.nextFloat() * clusterWidth, random.nextFloat() * 400, 30 * TILE_SIZE, TILE_SIZE);
+                body.velocity.set(60, 0);
+            } else if (i % 50 == 1) {
+                body.bodyType = BodyType.STATIC;
+                body.aabb = new BitRectangle(clusterX + random.nextFloat() * clusterWidth, random.nextFloat() * 400, 4 * TILE_SIZE, TILE_SIZE);
+            } else {
+                // small bodies and bullets
+                body.bodyType = BodyType.DYNAMIC;
+                float size = i % 3 == 0 ? 2 : 12;
+                body.aabb = new BitRectangle(clusterX + random.nextFloat() * clusterWidth, random.nextFloat() * 400, size, size);
+                body.velocity.set(random.nextFloat() * 200 - 100, random.nextFloat() * 200 - 100);
+            }
+            bodies.add(body);
+        }
+        return bodies;
+    }
+}
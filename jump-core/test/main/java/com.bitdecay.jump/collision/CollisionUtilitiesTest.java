@@ -2,11 +2,16 @@ package com.bitdecay.jump.collision;
 
 import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.GeomUtils;
 import com.bitdecay.jump.level.Direction;
 import com.bitdecay.jump.level.TileBody;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -58,6 +63,25 @@ public class CollisionUtilitiesTest {
         assertEquals(1, relativeMovement.y, 0);
     }
 
+    @Test
+    public void testRelativeMovementInto() {
+        BitBody bodyOne = new BitBody();
+        bodyOne.currentAttempt = new BitPoint(1, 1);
+
+        BitBody bodyTwo = new BitBody();
+        bodyTwo.currentAttempt = new BitPoint(-1, 1);
+
+        BitPoint out = new BitPoint(7, 7);
+        assertTrue(out == CollisionUtilities.getRelativeMovement(bodyOne, bodyTwo, new BitPoint(.5f, 0), out));
+        assertEquals(2.5, out.x, 0);
+        assertEquals(0, out.y, 0);
+
+        bodyOne.resolutionLocked = true;
+        CollisionUtilities.getRelativeMovement(bodyOne, bodyTwo, new BitPoint(.5f, 0), out);
+        assertEquals(1.5, out.x, 0);
+        assertEquals(-1, out.y, 0);
+    }
+
     @Test
     public void testAxisValidForNValue() {
         TileBody nothingAround = new TileBody();
@@ -136,4 +160,67 @@ public class CollisionUtilitiesTest {
 
 
     }
+
+    @Test
+    public void testRectangleSolutionMatchesGeneralSolve() {
+        Random random = new Random(7);
+        Manifold out = new Manifold();
+        for (int i = 0; i < 5000; i++) {
+            BitBody body = new BitBody();
+            body.aabb = new BitRectangle(random.nextInt(40), random.nextInt(40), 1 + random.nextInt(20), 1 + random.nextInt(20));
+            body.currentAttempt = new BitPoint(random.nextInt(7) - 3, random.nextInt(7) - 3);
+            body.resolutionLocked = random.nextInt(5) == 0;
+
+            BitBody other = random.nextBoolean() ? new BitBody() : new TileBody();
+            other.aabb = new BitRectangle(random.nextInt(40), random.nextInt(40), 1 + random.nextInt(20), 1 + random.nextInt(20));
+            other.currentAttempt = new BitPoint(random.nextInt(7) - 3, random.nextInt(7) - 3);
+            if (other instanceof TileBody) {
+                ((TileBody) other).nValue = random.nextInt(Direction.ALL + 1);
+            }
+
+            BitPoint cumulative = new BitPoint(random.nextInt(3) - 1, random.nextInt(3) - 1);
+
+            ManifoldBundle bundle = ProjectionUtilities.getBundle(body.aabb.copyOf().translate(cumulative), other.aabb);
+            Manifold expected = bundle == null ? GeomUtils.ZERO_MANIFOLD : CollisionUtilities.solve(bundle, body, other, cumulative);
+            CollisionUtilities.getSolutionCandidate(body, other, cumulative, out);
+
+            assertEquals(expected.axis, out.axis);
+            assertEquals(expected.distance, out.distance, 0);
+        }
+    }
+
+    @Test
+    public void testDegenerateRectangleUsesGeneralSolve() {
+        BitBody body = new BitBody();
+        body.aabb = new BitRectangle(0, 0, 10, 10);
+        body.currentAttempt = new BitPoint(1, 0);
+
+        BitBody line = new BitBody();
+        line.aabb = new BitRectangle(8, 0, 0, 10);
+
+        Manifold expected = CollisionUtilities.getSolutionCandidate(body, line, new BitPoint());
+        Manifold out = CollisionUtilities.getSolutionCandidate(body, line, new BitPoint(), new Manifold(new BitPoint(0, 1), 3));
+        assertEquals(expected.axis, out.axis);
+        assertEquals(expected.distance, out.distance, 0);
+    }
+
+    @Test
+    public void testCanCollide() {
+        BitBody bullet = new BitBody();
+        bullet.props.collisionCategory = 0x2;
+        bullet.props.collisionMask = ~0x6;
+        BitBody otherBullet = new BitBody();
+        otherBullet.props.collisionCategory = 0x2;
+        otherBullet.props.collisionMask = ~0x6;
+        BitBody pickup = new BitBody();
+        pickup.props.collisionCategory = 0x4;
+        BitBody wall = new BitBody();
+
+        assertTrue(CollisionUtilities.canCollide(bullet, wall));
+        assertTrue(CollisionUtilities.canCollide(wall, bullet));
+        assertFalse(CollisionUtilities.canCollide(bullet, otherBullet));
+        assertFalse(CollisionUtilities.canCollide(bullet, pickup));
+        assertFalse("Both masks have to match", CollisionUtilities.canCollide(pickup, bullet));
+        assertTrue(CollisionUtilities.canCollide(pickup, wall));
+    }
 }
@@ -0,0 +1,123 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ContactEventBufferTest {
+    private ContactManager contacts;
+    private ContactEventBuffer buffer;
+    private List<String> events;
+
+    private BitBody player;
+    private BitBody platform;
+    private BitBody enemy;
+
+    @Before
+    public void setup() {
+        contacts = new ContactManager();
+        buffer = new ContactEventBuffer();
+        events = new ArrayList<>();
+        player = makeBody("player", BodyType.DYNAMIC);
+        platform = makeBody("platform", BodyType.KINETIC);
+        enemy = makeBody("enemy", BodyType.DYNAMIC);
+    }
+
+    @Test
+    public void testDispatchInOrder() {
+        buffer.add(contacts.idFor(player), contacts.idFor(platform), ContactEventBuffer.STARTED);
+        buffer.add(contacts.idFor(player), contacts.idFor(enemy), ContactEventBuffer.CONTINUED);
+        buffer.add(contacts.idFor(player), contacts.idFor(platform), ContactEventBuffer.ENDED);
+        buffer.addCrushed(contacts.idFor(player));
+        assertEquals(4, buffer.size());
+
+        buffer.dispatch(contacts);
+        assertEquals(Arrays.asList(
+                "player started platform",
+                // non-dynamic bodies hear about contacts too
+                "platform started player",
+                "player contact enemy",
+                "player ended platform",
+                "platform ended player",
+                "player crushed"), events);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testCoalesceContinued() {
+        buffer.setCoalesceContinued(true);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(contacts.idFor(player), contacts.idFor(enemy), ContactEventBuffer.CONTINUED);
+            buffer.add(contacts.idFor(enemy), contacts.idFor(player), ContactEventBuffer.CONTINUED);
+        }
+        buffer.add(contacts.idFor(player), contacts.idFor(enemy), ContactEventBuffer.ENDED);
+        buffer.dispatch(contacts);
+        assertEquals(Arrays.asList("player contact enemy", "enemy contact player", "player ended enemy"), events);
+
+        // coalescing starts over after each dispatch
+        events.clear();
+        buffer.add(contacts.idFor(player), contacts.idFor(enemy), ContactEventBuffer.CONTINUED);
+        buffer.dispatch(contacts);
+        assertEquals(Arrays.asList("player contact enemy"), events);
+    }
+
+    @Test
+    public void testRemovedBodyStillDispatched() {
+        int enemyId = contacts.idFor(enemy);
+        buffer.add(contacts.idFor(player), enemyId, ContactEventBuffer.CONTINUED);
+        contacts.remove(enemy);
+        // the id isn't handed out again until the events have gone out
+        BitBody newcomer = makeBody("newcomer", BodyType.DYNAMIC);
+        assertNotEquals(enemyId, contacts.idFor(newcomer));
+
+        buffer.dispatch(contacts);
+        assertEquals(Arrays.asList("player contact enemy"), events);
+        contacts.releaseRemoved();
+        assertEquals(enemyId, contacts.idFor(makeBody("another", BodyType.DYNAMIC)));
+    }
+
+    private BitBody makeBody(String name, BodyType type) {
+        BitBody body = new BitBody();
+        body.bodyType = type;
+        body.addContactListener(new ContactListener() {
+            @Override
+            public void contactStarted(BitBody other) {
+                events.add(name + " started " + nameOf(other));
+            }
+
+            @Override
+            public void contact(BitBody other) {
+                events.add(name + " contact " + nameOf(other));
+            }
+
+            @Override
+            public void contactEnded(BitBody other) {
+                events.add(name + " ended " + nameOf(other));
+            }
+
+            @Override
+            public void crushed() {
+                events.add(name + " crushed");
+            }
+        });
+        return body;
+    }
+
+    private String nameOf(BitBody body) {
+        if (body == player) {
+            return "player";
+        } else if (body == platform) {
+            return "platform";
+        } else if (body == enemy) {
+            return "enemy";
+        }
+        return "newcomer";
+    }
+}
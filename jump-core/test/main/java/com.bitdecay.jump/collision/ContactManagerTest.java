@@ -0,0 +1,141 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.geom.BitRectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ContactManagerTest {
+    private ContactManager contacts;
+    private List<String> events;
+
+    private BitBody player;
+    private BitBody ground;
+
+    @Before
+    public void setup() {
+        contacts = new ContactManager();
+        events = new ArrayList<>();
+        player = new BitBody();
+        player.aabb = new BitRectangle(0, 0, 10, 10);
+        ground = new BitBody();
+        ground.aabb = new BitRectangle(0, -5, 10, 10);
+        player.addContactListener(new ContactAdapter() {
+            @Override
+            public void contactStarted(BitBody other) {
+                events.add("started");
+            }
+
+            @Override
+            public void contact(BitBody other) {
+                events.add("continued");
+            }
+
+            @Override
+            public void contactEnded(BitBody other) {
+                events.add("ended");
+            }
+        });
+    }
+
+    @Test
+    public void testStartedContinuedEnded() {
+        step(() -> contacts.flagContact(player, ground));
+        assertEvents("started");
+
+        step(() -> {});
+        assertEvents("continued");
+
+        ground.aabb.xy.set(0, -50);
+        step(() -> {});
+        assertEvents("ended");
+
+        step(() -> {});
+        assertEvents();
+    }
+
+    @Test
+    public void testTouchingAgainKeepsContact() {
+        step(() -> contacts.flagContact(player, ground));
+        events.clear();
+
+        // moved apart, but touched again before the step ended
+        ground.aabb.xy.set(0, -50);
+        step(() -> contacts.flagContact(player, ground));
+        assertEvents("continued");
+    }
+
+    @Test
+    public void testIdsOnlyForBodiesInContact() {
+        BitBody untouched = new BitBody();
+        assertEquals(-1, contacts.idOf(untouched));
+        step(() -> contacts.flagContact(player, ground));
+        assertEquals(2, contacts.trackedBodies());
+        assertEquals(-1, contacts.idOf(untouched));
+        assertTrue(contacts.getBody(contacts.idOf(ground)) == ground);
+    }
+
+    @Test
+    public void testRemoveForgetsContacts() {
+        step(() -> contacts.flagContact(player, ground));
+        assertEquals(1, contacts.contactCount());
+        int groundId = contacts.idOf(ground);
+
+        contacts.remove(ground);
+        assertEquals(-1, contacts.idOf(ground));
+        assertEquals(0, contacts.contactCount());
+        events.clear();
+        step(() -> {});
+        assertEvents();
+
+        // ids are reused
+        BitBody other = new BitBody();
+        other.aabb = new BitRectangle(0, 0, 10, 10);
+        step(() -> contacts.flagContact(player, other));
+        assertEquals(groundId, contacts.idOf(other));
+    }
+
+    @Test
+    public void testRemoveManyBodies() {
+        List<BitBody> tiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BitBody tile = new BitBody();
+            tile.aabb = new BitRectangle(0, -5, 10, 10);
+            tiles.add(tile);
+        }
+        step(() -> tiles.forEach(tile -> contacts.flagContact(player, tile)));
+        assertEquals(20, contacts.contactCount());
+        events.clear();
+
+        for (int i = 0; i < tiles.size(); i += 2) {
+            contacts.remove(tiles.get(i));
+        }
+        assertEquals(10, contacts.contactCount());
+        step(() -> {});
+        assertEquals(10, events.size());
+        assertTrue(events.stream().allMatch("continued"::equals));
+        assertEquals(11, contacts.trackedBodies());
+    }
+
+    private void step(Runnable duringStep) {
+        contacts.beginStep();
+        contacts.updateExisting();
+        duringStep.run();
+        ContactEventBuffer buffer = new ContactEventBuffer();
+        contacts.recordEvents(buffer);
+        contacts.endStep();
+        buffer.dispatch(contacts);
+        contacts.releaseRemoved();
+    }
+
+    private void assertEvents(String... expected) {
+        assertEquals(Arrays.asList(expected), events);
+        events.clear();
+    }
+}
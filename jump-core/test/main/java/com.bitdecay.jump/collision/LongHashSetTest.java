@@ -0,0 +1,111 @@
+package com.bitdecay.jump.collision;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testMatchesHashSet() {
+        Random random = new Random(3);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            // a small key range so adds and removes keep running in to each other
+            long key = ContactManager.pack(random.nextInt(40), random.nextInt(40));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int a = 0; a < 40; a++) {
+            for (int b = 0; b < 40; b++) {
+                long key = ContactManager.pack(a, b);
+                assertEquals(expected.contains(key), set.contains(key));
+            }
+        }
+
+        int seen = 0;
+        for (int i = 0; i < set.capacity(); i++) {
+            if (set.keyAt(i) != LongHashSet.EMPTY) {
+                assertTrue(expected.contains(set.keyAt(i)));
+                seen++;
+            }
+        }
+        assertEquals(expected.size(), seen);
+    }
+
+    @Test
+    public void testCopyAndClear() {
+        LongHashSet set = new LongHashSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        LongHashSet copy = new LongHashSet();
+        copy.copy(set);
+        assertEquals(100, copy.size());
+        assertTrue(copy.contains(57));
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(57));
+        assertTrue(copy.contains(57));
+    }
+
+    @Test
+    public void testCopyKeepsLargerSlots() {
+        LongHashSet big = new LongHashSet();
+        for (int i = 0; i < 100; i++) {
+            big.add(i);
+        }
+        LongHashSet small = new LongHashSet();
+        small.add(3);
+        small.add(4);
+
+        int slots = big.capacity();
+        big.copy(small);
+        assertEquals(slots, big.capacity());
+        assertEquals(2, big.size());
+        assertTrue(big.contains(3));
+        assertTrue(big.contains(4));
+        assertFalse(big.contains(57));
+    }
+
+    @Test
+    public void testRemoveIf() {
+        Random random = new Random(5);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            long key = ContactManager.pack(random.nextInt(60), random.nextInt(60));
+            set.add(key);
+            expected.add(key);
+        }
+        int removed = set.removeIf(key -> ContactManager.bodyId(key) % 3 == 0 || ContactManager.otherId(key) == 7);
+        int before = expected.size();
+        expected.removeIf(key -> ContactManager.bodyId(key) % 3 == 0 || ContactManager.otherId(key) == 7);
+        assertEquals(before - expected.size(), removed);
+        assertEquals(expected.size(), set.size());
+        for (int a = 0; a < 60; a++) {
+            for (int b = 0; b < 60; b++) {
+                long key = ContactManager.pack(a, b);
+                assertEquals(expected.contains(key), set.contains(key));
+            }
+        }
+    }
+
+    @Test
+    public void testPackKeepsIds() {
+        long pair = ContactManager.pack(123456, 7);
+        assertEquals(123456, ContactManager.bodyId(pair));
+        assertEquals(7, ContactManager.otherId(pair));
+        assertNotEquals(LongHashSet.EMPTY, ContactManager.pack(0, 0));
+    }
+}
@@ -19,4 +19,16 @@ public class ManifoldTest {
         assertTrue(man.result.x == 5);
         assertTrue(man.result.y == 0);
     }
+
+    @Test
+    public void testSetReusesManifold() {
+        BitPoint axis = new BitPoint(1, 0);
+        Manifold man = new Manifold(axis, 5);
+        man.set(0, -1, 3);
+        assertTrue(man.axis.equals(new BitPoint(0, -1)));
+        assertTrue(man.distance == 3);
+        assertTrue(man.result.x == 0);
+        assertTrue(man.result.y == -3);
+        assertTrue("Setting a manifold must not change the axis it was built from", axis.equals(new BitPoint(1, 0)));
+    }
 }
@@ -0,0 +1,153 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.JumperBody;
+import com.bitdecay.jump.control.ControlMap;
+import com.bitdecay.jump.control.PlayerAction;
+import com.bitdecay.jump.control.PlayerInputController;
+import com.bitdecay.jump.geom.BitRectangle;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Steps many worlds with different settings at the same time and checks each one
+ * comes out exactly as it does when stepped alone.
+ */
+public class MultiWorldTest {
+    private static final int WORLDS = 12;
+    private static final int STEPS = 240;
+
+    private ExecutorService executor;
+
+    @After
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelWorldsMatchSingleThreaded() throws Exception {
+        List<Run> expected = new ArrayList<>();
+        for (int i = 0; i < WORLDS; i++) {
+            Run run = new Run(i);
+            run.stepAll();
+            expected.add(run);
+        }
+
+        executor = Executors.newFixedThreadPool(4);
+        List<Run> parallel = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < WORLDS; i++) {
+            Run run = new Run(i);
+            parallel.add(run);
+            futures.add(executor.submit(run::stepAll));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        for (int i = 0; i < WORLDS; i++) {
+            Run single = expected.get(i);
+            Run other = parallel.get(i);
+            assertEquals(single.player.aabb.xy, other.player.aabb.xy);
+            assertEquals(single.player.velocity, other.player.velocity);
+            assertEquals(single.player.controller.getStatus(), other.player.controller.getStatus());
+            for (int j = 0; j < single.bodies.size(); j++) {
+                assertEquals(single.bodies.get(j).aabb.xy, other.bodies.get(j).aabb.xy);
+                assertEquals(single.bodies.get(j).velocity, other.bodies.get(j).velocity);
+                assertEquals(single.bodies.get(j).grounded, other.bodies.get(j).grounded);
+            }
+        }
+    }
+
+    @Test
+    public void testWorldsKeepTheirOwnSettings() {
+        BitWorld first = new BitWorld();
+        BitWorld second = new BitWorld();
+        first.setGravity(0, -900);
+        first.setMaxSpeed(100, 200);
+        second.setGravity(0, 900);
+
+        assertEquals(-900, first.getGravity().y, 0);
+        assertEquals(900, second.getGravity().y, 0);
+        assertEquals(100, first.getMaxSpeed().x, 0);
+        assertEquals(2000, second.getMaxSpeed().x, 0);
+    }
+
+    /**
+     * One world, set up with its own gravity and speed limit, and a player following a
+     * fixed input script
+     */
+    private static class Run {
+        final List<BitBody> bodies = new ArrayList<>();
+        final BitWorld world;
+        final JumperBody player;
+        int step;
+
+        Run(int index) {
+            world = BitWorldTest.buildWorld(bodies, 40);
+            world.setGravity(index % 3 == 0 ? 60 : 0, -500 - 50 * index);
+            world.setMaxSpeed(300 + 40 * index, 2000);
+
+            player = new JumperBody();
+            player.bodyType = BodyType.DYNAMIC;
+            player.aabb = new BitRectangle(80, 40, 8, 12);
+            player.props.acceleration = 800;
+            player.props.airAcceleration = 600;
+            player.props.deceleration = 800;
+            player.props.airDeceleration = 400;
+            player.controller = new PlayerInputController(new ScriptedControls());
+            world.addBody(player);
+        }
+
+        void stepAll() {
+            for (step = 0; step < STEPS; step++) {
+                world.step(BitWorld.STEP_SIZE * 1.5f);
+            }
+        }
+
+        private class ScriptedControls implements ControlMap {
+            @Override
+            public void enable() {
+            }
+
+            @Override
+            public void disable() {
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public boolean isJustPressed(PlayerAction action) {
+                return isPressed(action) && step % 40 == 0;
+            }
+
+            @Override
+            public boolean isPressed(PlayerAction action) {
+                switch (action) {
+                    case JUMP:
+                        return step % 40 < 10;
+                    case RIGHT:
+                        return (step / 100) % 2 == 0;
+                    case LEFT:
+                        return (step / 100) % 2 == 1;
+                    default:
+                        return false;
+                }
+            }
+        }
+    }
+}
@@ -2,12 +2,14 @@ package com.bitdecay.jump.collision;
 
 import com.bitdecay.jump.geom.BitPoint;
 import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.BitTriangle;
 import com.bitdecay.jump.geom.GeomUtils;
 import com.bitdecay.jump.geom.MathUtils;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -200,4 +202,22 @@ public class ProjectionUtilitiesTest {
         Float overlap = ProjectionUtilities.getLinearOverlap(minMax1, minMax2);
         assertEquals(5, overlap.floatValue(), 0);
     }
+
+    @Test
+    public void testIsOverlappingMatchesGetBundle() {
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            // small integer coordinates so plenty of the rectangles share edges
+            BitRectangle rect1 = new BitRectangle(random.nextInt(10), random.nextInt(10), random.nextInt(6), random.nextInt(6));
+            BitRectangle rect2 = new BitRectangle(random.nextInt(10), random.nextInt(10), random.nextInt(6), random.nextInt(6));
+            assertEquals(rect1 + " " + rect2, ProjectionUtilities.getBundle(rect1, rect2) != null, ProjectionUtilities.isOverlapping(rect1, rect2));
+        }
+    }
+
+    @Test
+    public void testIsOverlappingTriangle() {
+        BitTriangle triangle = new BitTriangle(0, 0, 10, 10);
+        assertTrue(ProjectionUtilities.isOverlapping(triangle, new BitRectangle(1, 1, 2, 2)));
+        assertFalse(ProjectionUtilities.isOverlapping(triangle, new BitRectangle(8, 8, 2, 2)));
+    }
 }
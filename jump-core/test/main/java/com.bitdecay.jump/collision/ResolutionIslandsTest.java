@@ -0,0 +1,102 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ResolutionIslandsTest {
+    private ResolutionIslands islands;
+    private List<SATStrategy> ordered;
+    private Map<BitBody, SATStrategy> byBody;
+
+    @Before
+    public void setup() {
+        islands = new ResolutionIslands();
+        ordered = new ArrayList<>();
+        byBody = new HashMap<>();
+    }
+
+    @Test
+    public void testStaticBodiesDoNotJoinIslands() {
+        BitBody ground = makeBody(BodyType.STATIC);
+        BitBody first = makeBody(BodyType.DYNAMIC);
+        BitBody second = makeBody(BodyType.DYNAMIC);
+        addStrategy(first, ground);
+        addStrategy(second, ground);
+
+        islands.build(ordered, byBody);
+        assertEquals(2, islands.count());
+        assertTrue(islands.get(0).strategies.get(0).body == first);
+        assertTrue(islands.get(1).strategies.get(0).body == second);
+    }
+
+    @Test
+    public void testSharedKineticJoinsIslands() {
+        BitBody platform = makeBody(BodyType.KINETIC);
+        BitBody first = makeBody(BodyType.DYNAMIC);
+        BitBody loner = makeBody(BodyType.DYNAMIC);
+        BitBody second = makeBody(BodyType.DYNAMIC);
+        addStrategy(first, platform);
+        addStrategy(loner, makeBody(BodyType.STATIC));
+        addStrategy(second, platform);
+
+        islands.build(ordered, byBody);
+        assertEquals(2, islands.count());
+        ResolutionIslands.Island shared = islands.get(0);
+        assertEquals(2, shared.strategies.size());
+        assertTrue("Order within an island is kept", shared.strategies.get(0).body == first);
+        assertTrue(shared.strategies.get(1).body == second);
+        assertTrue(islands.get(1).strategies.get(0).body == loner);
+    }
+
+    @Test
+    public void testDynamicAgainstDynamicJoinsIslands() {
+        BitBody first = makeBody(BodyType.DYNAMIC);
+        BitBody second = makeBody(BodyType.DYNAMIC);
+        BitBody third = makeBody(BodyType.DYNAMIC);
+        addStrategy(first, second);
+        addStrategy(third, makeBody(BodyType.STATIC));
+        addStrategy(second, third);
+
+        islands.build(ordered, byBody);
+        assertEquals(1, islands.count());
+        assertEquals(3, islands.get(0).strategies.size());
+    }
+
+    @Test
+    public void testRebuildReusesIslands() {
+        BitBody first = makeBody(BodyType.DYNAMIC);
+        addStrategy(first, makeBody(BodyType.STATIC));
+        addStrategy(makeBody(BodyType.DYNAMIC), makeBody(BodyType.STATIC));
+        islands.build(ordered, byBody);
+        assertEquals(2, islands.count());
+
+        ordered.clear();
+        byBody.clear();
+        addStrategy(first, makeBody(BodyType.STATIC));
+        islands.build(ordered, byBody);
+        assertEquals(1, islands.count());
+        assertEquals(1, islands.get(0).strategies.size());
+    }
+
+    private void addStrategy(BitBody body, BitBody against) {
+        SATStrategy strategy = new SATStrategy(body);
+        strategy.addCollision(new BitCollision(body, against));
+        ordered.add(strategy);
+        byBody.put(body, strategy);
+    }
+
+    private BitBody makeBody(BodyType type) {
+        BitBody body = new BitBody();
+        body.bodyType = type;
+        return body;
+    }
+}
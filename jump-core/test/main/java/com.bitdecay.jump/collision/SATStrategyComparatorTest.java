@@ -19,10 +19,10 @@ public class SATStrategyComparatorTest {
         staticBody.bodyType = BodyType.STATIC;
 
         SATStrategy strat1 = new SATStrategy(body);
-        strat1.potentialCollisions.add(new BitCollision(body, kineticBody));
+        strat1.addCollision(new BitCollision(body, kineticBody));
 
         SATStrategy strat2 = new SATStrategy(body);
-        strat2.potentialCollisions.add(new BitCollision(body, staticBody));
+        strat2.addCollision(new BitCollision(body, staticBody));
 
         SATStrategyComparator compare = new SATStrategyComparator();
 
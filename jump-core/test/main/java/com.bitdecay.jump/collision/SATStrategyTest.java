@@ -0,0 +1,73 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SATStrategyTest {
+
+    @Test
+    public void testIsCollidingWith() {
+        BitBody body = new BitBody();
+        SATStrategy strategy = new SATStrategy(body);
+        List<BitBody> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            BitBody against = new BitBody();
+            assertFalse(strategy.isCollidingWith(against));
+            strategy.addCollision(new BitCollision(body, against));
+            added.add(against);
+        }
+        for (BitBody against : added) {
+            assertTrue(strategy.isCollidingWith(against));
+        }
+        assertFalse(strategy.isCollidingWith(new BitBody()));
+    }
+
+    @Test
+    public void testReset() {
+        BitBody body = new BitBody();
+        BitBody against = new BitBody();
+        against.bodyType = BodyType.STATIC;
+        SATStrategy strategy = new SATStrategy(body);
+        strategy.addCollision(new BitCollision(body, against));
+        strategy.lockingResolution = true;
+        strategy.resolution.set(3, 4);
+        strategy.cumulativeResolution.set(3, 4);
+
+        BitBody other = new BitBody();
+        strategy.reset(other);
+        assertTrue(strategy.body == other);
+        assertTrue(strategy.potentialCollisions.isEmpty());
+        assertEquals(0, strategy.collisionCount());
+        assertEquals(0, strategy.getWeight());
+        assertFalse(strategy.isCollidingWith(against));
+        assertFalse(strategy.lockingResolution);
+        assertEquals(0, strategy.resolution.x, 0);
+        assertEquals(0, strategy.resolution.y, 0);
+        assertEquals(0, strategy.cumulativeResolution.x, 0);
+        assertEquals(0, strategy.cumulativeResolution.y, 0);
+    }
+
+    @Test
+    public void testCollisionsInQueueOrder() {
+        BodyType[] types = BodyType.values();
+        BitBody body = new BitBody();
+        SATStrategy strategy = new SATStrategy(body);
+        for (int i = 0; i < 50; i++) {
+            BitBody against = new BitBody();
+            against.bodyType = types[(i * 7) % types.length];
+            strategy.addCollision(new BitCollision(body, against));
+        }
+
+        assertEquals(strategy.potentialCollisions.size(), strategy.collisionCount());
+        int i = 0;
+        for (BitCollision collision : strategy.potentialCollisions) {
+            assertTrue(collision == strategy.collisionAt(i++));
+        }
+    }
+}
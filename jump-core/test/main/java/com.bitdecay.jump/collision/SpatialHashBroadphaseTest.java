@@ -0,0 +1,173 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpatialHashBroadphaseTest {
+    private SpatialHashBroadphase broadphase;
+    private List<BitBody> found;
+    private BroadphaseCallback collector;
+
+    @Before
+    public void setup() {
+        broadphase = new SpatialHashBroadphase();
+        broadphase.configure(16, new BitPointInt(0, 0));
+        found = new ArrayList<>();
+        collector = (body, other) -> found.add(other);
+    }
+
+    @Test
+    public void testQueryFindsBodiesSharingCells() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody neighbor = makeBody(12, 12, 10, 10);
+        BitBody farAway = makeBody(500, 500, 10, 10);
+
+        broadphase.add(body);
+        broadphase.add(neighbor);
+        broadphase.add(farAway);
+
+        broadphase.query(body, collector);
+        assertTrue(found.contains(neighbor));
+        assertFalse(found.contains(farAway));
+        assertFalse("A body is never its own candidate", found.contains(body));
+    }
+
+    @Test
+    public void testQueryHandlesNegativeCoordinates() {
+        BitBody body = makeBody(-20, -20, 10, 10);
+        BitBody neighbor = makeBody(-10, -10, 4, 4);
+
+        broadphase.add(body);
+        broadphase.add(neighbor);
+
+        broadphase.query(body, collector);
+        assertTrue(found.contains(neighbor));
+    }
+
+    @Test
+    public void testClearEmptiesCells() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody neighbor = makeBody(4, 4, 10, 10);
+
+        broadphase.add(body);
+        broadphase.add(neighbor);
+        broadphase.clear();
+        broadphase.add(body);
+
+        broadphase.query(body, collector);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void testUpdateMovesBodyBetweenCells() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody mover = makeBody(4, 4, 10, 10);
+
+        broadphase.add(body);
+        broadphase.add(mover);
+
+        mover.aabb.translate(200, 0);
+        broadphase.update(mover);
+        broadphase.query(body, collector);
+        assertTrue(found.isEmpty());
+
+        mover.aabb.translate(-200, 0);
+        broadphase.update(mover);
+        broadphase.query(body, collector);
+        assertTrue(found.contains(mover));
+    }
+
+    @Test
+    public void testUpdateWithinSameCellsKeepsCellCount() {
+        BitBody body = makeBody(1, 1, 4, 4);
+        broadphase.add(body);
+        int cells = broadphase.cellCount();
+
+        body.aabb.translate(2, 2);
+        broadphase.update(body);
+        assertEquals(cells, broadphase.cellCount());
+    }
+
+    @Test
+    public void testRemoveReleasesCells() {
+        BitBody body = makeBody(0, 0, 40, 40);
+        BitBody other = makeBody(8, 8, 4, 4);
+        broadphase.add(body);
+        broadphase.add(other);
+
+        broadphase.remove(body);
+        broadphase.query(other, collector);
+        assertTrue(found.isEmpty());
+
+        broadphase.remove(other);
+        assertEquals(0, broadphase.cellCount());
+    }
+
+    @Test
+    public void testInactiveBodiesAreNotReported() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody neighbor = makeBody(4, 4, 10, 10);
+        neighbor.active = false;
+
+        broadphase.add(body);
+        broadphase.add(neighbor);
+
+        broadphase.query(body, collector);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void testManyRemovesKeepLookupsIntact() {
+        List<BitBody> bodies = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            BitBody body = makeBody((i % 50) * 16, (i / 50) * 16, 4, 4);
+            bodies.add(body);
+            broadphase.add(body);
+        }
+        for (int i = 0; i < bodies.size(); i += 2) {
+            broadphase.remove(bodies.get(i));
+        }
+        for (int i = 1; i < bodies.size(); i += 2) {
+            BitBody probe = makeBody(bodies.get(i).aabb.xy.x, bodies.get(i).aabb.xy.y, 1, 1);
+            found.clear();
+            broadphase.query(probe, collector);
+            assertTrue(found.contains(bodies.get(i)));
+            assertFalse(found.contains(bodies.get(i - 1)));
+        }
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        List<BitBody> bodies = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            BitBody body = makeBody(i * 32, 0, 10, 10);
+            bodies.add(body);
+            broadphase.add(body);
+        }
+        BitBody probe = makeBody(1000 * 32, 0, 10, 10);
+        broadphase.query(probe, collector);
+        assertTrue(found.contains(bodies.get(1000)));
+        assertFalse(found.contains(bodies.get(999)));
+    }
+
+    @Test
+    public void testPack() {
+        assertNotEquals(SpatialHashBroadphase.pack(1, -1), SpatialHashBroadphase.pack(-1, 1));
+        assertNotEquals(SpatialHashBroadphase.pack(0, -1), SpatialHashBroadphase.pack(-1, 0));
+        assertEquals(SpatialHashBroadphase.pack(3, 4), SpatialHashBroadphase.pack(3, 4));
+    }
+
+    private BitBody makeBody(float x, float y, float width, float height) {
+        BitBody body = new BitBody();
+        body.aabb = new BitRectangle(x, y, width, height);
+        return body;
+    }
+}
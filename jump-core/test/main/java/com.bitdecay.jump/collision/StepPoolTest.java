@@ -0,0 +1,25 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.geom.BitPoint;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StepPoolTest {
+
+    @Test
+    public void testObtainReusesAfterFreeAll() {
+        StepPool<BitPoint> pool = new StepPool<>(BitPoint::new);
+        BitPoint first = pool.obtain();
+        BitPoint second = pool.obtain();
+        assertFalse(first == second);
+        assertEquals(2, pool.inUse());
+
+        pool.freeAll();
+        assertEquals(0, pool.inUse());
+        assertTrue(first == pool.obtain());
+        assertTrue(second == pool.obtain());
+        assertFalse(first == pool.obtain());
+        assertEquals(3, pool.size());
+    }
+}
@@ -0,0 +1,61 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StrategyOrderTest {
+
+    @Test
+    public void testMatchesComparator() {
+        Random random = new Random(9);
+        StrategyOrder order = new StrategyOrder();
+        List<SATStrategy> sorted = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            List<SATStrategy> strategies = new ArrayList<>();
+            int count = random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                BitBody body = new BitBody();
+                SATStrategy strategy = new SATStrategy(body);
+                int collisions = random.nextInt(6);
+                for (int j = 0; j < collisions; j++) {
+                    BitBody against = new BitBody();
+                    against.bodyType = BodyType.values()[random.nextInt(BodyType.values().length)];
+                    strategy.addCollision(new BitCollision(body, against));
+                }
+                strategies.add(strategy);
+            }
+
+            List<SATStrategy> expected = new ArrayList<>(strategies);
+            Collections.sort(expected, new SATStrategyComparator());
+
+            order.sort(strategies, sorted);
+            assertEquals(expected.size(), sorted.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue("Order should match the comparator, including ties", expected.get(i) == sorted.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testWeightTracksCollisions() {
+        BitBody body = new BitBody();
+        BitBody kinetic = new BitBody();
+        kinetic.bodyType = BodyType.KINETIC;
+        BitBody stat = new BitBody();
+        stat.bodyType = BodyType.STATIC;
+
+        SATStrategy strategy = new SATStrategy(body);
+        assertEquals(0, strategy.getWeight());
+        strategy.addCollision(new BitCollision(body, kinetic));
+        strategy.addCollision(new BitCollision(body, stat));
+        assertEquals(BodyType.KINETIC.order + BodyType.STATIC.order, strategy.getWeight());
+    }
+}
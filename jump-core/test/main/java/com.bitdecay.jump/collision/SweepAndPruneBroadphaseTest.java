@@ -0,0 +1,129 @@
+package com.bitdecay.jump.collision;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SweepAndPruneBroadphaseTest {
+    private SweepAndPruneBroadphase broadphase;
+    private List<BitBody> found;
+    private BroadphaseCallback collector;
+
+    @Before
+    public void setup() {
+        broadphase = new SweepAndPruneBroadphase();
+        broadphase.configure(16, new BitPointInt(0, 0));
+        found = new ArrayList<>();
+        collector = (body, other) -> found.add(other);
+    }
+
+    @Test
+    public void testQueryFindsNearbyBodies() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody neighbor = makeBody(12, 12, 10, 10);
+        BitBody farAway = makeBody(500, 0, 10, 10);
+        BitBody farAbove = makeBody(0, 500, 10, 10);
+
+        broadphase.add(body);
+        broadphase.add(neighbor);
+        broadphase.add(farAway);
+        broadphase.add(farAbove);
+
+        broadphase.query(body, collector);
+        assertTrue(found.contains(neighbor));
+        assertFalse(found.contains(farAway));
+        assertFalse(found.contains(farAbove));
+        assertFalse("A body is never its own candidate", found.contains(body));
+    }
+
+    @Test
+    public void testWideBodyStartingFarLeftIsFound() {
+        BitBody platform = makeBody(-1000, 0, 2000, 16);
+        BitBody body = makeBody(500, 10, 8, 8);
+
+        broadphase.add(platform);
+        broadphase.add(body);
+
+        broadphase.query(body, collector);
+        assertTrue(found.contains(platform));
+    }
+
+    @Test
+    public void testUpdateKeepsOrder() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody mover = makeBody(400, 0, 10, 10);
+        broadphase.add(body);
+        broadphase.add(mover);
+
+        broadphase.query(body, collector);
+        assertTrue(found.isEmpty());
+
+        mover.aabb.xy.set(-4, 0);
+        broadphase.update(mover);
+        broadphase.query(body, collector);
+        assertTrue(found.contains(mover));
+    }
+
+    @Test
+    public void testRemove() {
+        BitBody body = makeBody(0, 0, 10, 10);
+        BitBody other = makeBody(4, 4, 10, 10);
+        broadphase.add(body);
+        broadphase.add(other);
+        broadphase.remove(other);
+
+        broadphase.query(body, collector);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void testFindsEverythingTheGridFinds() {
+        SpatialHashBroadphase grid = new SpatialHashBroadphase();
+        grid.configure(16, new BitPointInt(0, 0));
+
+        Random random = new Random(3);
+        List<BitBody> bodies = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            BitBody body = makeBody(random.nextFloat() * 800, random.nextFloat() * 800, 2 + random.nextFloat() * 40, 2 + random.nextFloat() * 40);
+            bodies.add(body);
+            grid.add(body);
+            broadphase.add(body);
+        }
+        for (int step = 0; step < 5; step++) {
+            for (BitBody body : bodies) {
+                body.aabb.translate(random.nextFloat() * 20 - 10, random.nextFloat() * 20 - 10);
+                grid.update(body);
+                broadphase.update(body);
+            }
+            for (BitBody body : bodies) {
+                List<BitBody> fromGrid = new ArrayList<>();
+                grid.query(body, (b, other) -> fromGrid.add(other));
+                found.clear();
+                broadphase.query(body, collector);
+                for (BitBody other : fromGrid) {
+                    if (overlaps(body.aabb, other.aabb)) {
+                        assertTrue("Overlapping body found by grid but not by sweep", found.contains(other));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean overlaps(BitRectangle a, BitRectangle b) {
+        return a.xy.x < b.xy.x + b.width && b.xy.x < a.xy.x + a.width && a.xy.y < b.xy.y + b.height && b.xy.y < a.xy.y + a.height;
+    }
+
+    private BitBody makeBody(float x, float y, float width, float height) {
+        BitBody body = new BitBody();
+        body.aabb = new BitRectangle(x, y, width, height);
+        return body;
+    }
+}
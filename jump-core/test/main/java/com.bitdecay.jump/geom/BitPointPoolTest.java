@@ -0,0 +1,19 @@
+package com.bitdecay.jump.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitPointPoolTest {
+
+    @Test
+    public void testPoolReusesPoints() {
+        BitPointPool pool = new BitPointPool();
+        BitPoint first = pool.obtain();
+        pool.free(first);
+        assertEquals(1, pool.getFreeCount());
+        assertTrue(pool.obtain() == first);
+        assertEquals(0, pool.getFreeCount());
+        assertFalse(pool.obtain() == first);
+    }
+}
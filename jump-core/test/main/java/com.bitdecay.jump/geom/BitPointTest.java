@@ -263,6 +263,47 @@ public class BitPointTest {
         assertFalse(point1.looseEquals(point2));
     }
 
+    @Test
+    public void testAddScaled() {
+        BitPoint point = getSimplePoint();
+        point.addScaled(new BitPoint(2, -4), 1.5f);
+        assertTrue(point.x == 13);
+        assertTrue(point.y == 4);
+    }
+
+    @Test
+    public void testScaleInto() {
+        BitPoint point = getSimplePoint();
+        BitPoint out = new BitPoint();
+        assertTrue(point.scaleInto(3, out) == out);
+        assertTrue(out.equals(point.scale(3)));
+
+        point.scaleInto(2, point);
+        assertTrue(point.equals(new BitPoint(20, 20)));
+    }
+
+    @Test
+    public void testNormalizeInto() {
+        BitPoint point = new BitPoint(3, 4);
+        BitPoint out = point.normalizeInto(new BitPoint());
+        assertTrue(out.equals(point.normalize()));
+
+        point.normalizeInto(point);
+        assertTrue(point.equals(out));
+
+        BitPoint zero = new BitPoint(5, 5);
+        new BitPoint(0, 0).normalizeInto(zero);
+        assertTrue(zero.equals(new BitPoint(0, 0)));
+    }
+
+    @Test
+    public void testShrinkIntoSelf() {
+        BitPoint point = new BitPoint(10, -0.5f);
+        point.shrinkInto(1, point);
+        assertTrue(point.x == 9);
+        assertTrue(point.y == 0);
+    }
+
     private BitPoint getSimplePoint() {
         return new BitPoint(10, 10);
     }
@@ -193,7 +193,30 @@ public class BitRectangleTest {
         assertTrue(list.contains(new BitPoint(10, 0)));
     }
 
+    @Test
+    public void testTranslateScaled() {
+        BitRectangle rect = makeSimpleRectangle();
+        assertTrue(rect.translateScaled(new BitPoint(4, -2), 0.5f) == rect);
+        assertTrue(rect.xy.equals(new BitPoint(2, -1)));
+    }
+
     private BitRectangle makeSimpleRectangle() {
         return new BitRectangle(0,0,10,10);
     }
+
+    @Test
+    public void testOverlaps() {
+        BitRectangle rect = new BitRectangle(0, 0, 10, 10);
+        assertTrue(rect.overlaps(new BitRectangle(5, 5, 10, 10)));
+        assertTrue(rect.overlaps(new BitRectangle(2, 2, 2, 2)));
+        assertTrue(new BitRectangle(2, 2, 2, 2).overlaps(rect));
+
+        // sharing an edge is not overlapping
+        assertFalse(rect.overlaps(new BitRectangle(10, 0, 10, 10)));
+        assertFalse(rect.overlaps(new BitRectangle(0, -10, 10, 10)));
+        assertFalse(rect.overlaps(new BitRectangle(20, 20, 5, 5)));
+
+        // nor is having no area
+        assertFalse(rect.overlaps(new BitRectangle(5, 0, 0, 10)));
+    }
 }
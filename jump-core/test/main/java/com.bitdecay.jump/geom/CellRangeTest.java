@@ -0,0 +1,46 @@
+package com.bitdecay.jump.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CellRangeTest {
+
+    @Test
+    public void testSet() {
+        CellRange range = new CellRange().set(new BitRectangle(20, 5, 10, 30), 16, new BitPointInt(0, 0));
+        assertEquals(1, range.startX);
+        assertEquals(0, range.startY);
+        assertEquals(2, range.endX);
+        assertEquals(2, range.endY);
+    }
+
+    @Test
+    public void testSetNegativeWithOffset() {
+        CellRange range = new CellRange().set(new BitRectangle(-1, -17, 16, 16), 16, new BitPointInt(-2, -2));
+        assertEquals(1, range.startX);
+        assertEquals(0, range.startY);
+        assertEquals(2, range.endX);
+        assertEquals(1, range.endY);
+    }
+
+    @Test
+    public void testContains() {
+        CellRange range = new CellRange().set(new BitRectangle(0, 0, 16, 16), 16, new BitPointInt(0, 0));
+        assertTrue(range.contains(0, 0));
+        assertTrue(range.contains(1, 1));
+        assertFalse(range.contains(2, 1));
+        assertFalse(range.contains(-1, 0));
+    }
+
+    @Test
+    public void testSameCells() {
+        CellRange range = new CellRange().set(new BitRectangle(1, 1, 4, 4), 16, new BitPointInt(0, 0));
+        CellRange moved = new CellRange().set(new BitRectangle(5, 5, 4, 4), 16, new BitPointInt(0, 0));
+        CellRange crossed = new CellRange().set(new BitRectangle(17, 5, 4, 4), 16, new BitPointInt(0, 0));
+
+        assertTrue(range.sameCells(moved));
+        assertFalse(range.sameCells(crossed));
+        assertTrue(crossed.sameCells(new CellRange().set(crossed)));
+    }
+}
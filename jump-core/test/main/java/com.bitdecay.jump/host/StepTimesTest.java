@@ -0,0 +1,43 @@
+package com.bitdecay.jump.host;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StepTimesTest {
+
+    @Test
+    public void testPercentiles() {
+        StepTimes times = new StepTimes(100);
+        assertEquals(0, times.percentile(50));
+        for (int i = 100; i > 0; i--) {
+            times.record(i);
+        }
+        assertEquals(1, times.percentile(0));
+        assertEquals(50, times.percentile(50));
+        assertEquals(99, times.percentile(99));
+        assertEquals(100, times.percentile(100));
+        assertEquals(100, times.size());
+    }
+
+    @Test
+    public void testKeepsMostRecent() {
+        StepTimes times = new StepTimes(10);
+        for (int i = 1; i <= 25; i++) {
+            times.record(i);
+        }
+        assertEquals(10, times.size());
+        assertEquals(25, times.getTotal());
+        assertEquals(16, times.percentile(0));
+        assertEquals(25, times.percentile(100));
+
+        times.clear();
+        assertEquals(0, times.size());
+        assertEquals(0, times.percentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new StepTimes().percentile(101);
+    }
+}
@@ -0,0 +1,188 @@
+package com.bitdecay.jump.host;
+
+import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.collision.BitWorld;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.level.Level;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WorldHostTest {
+    private WorldHost host;
+
+    @After
+    public void cleanup() {
+        if (host != null) {
+            host.close();
+        }
+    }
+
+    @Test
+    public void testStepsEachWorldOnItsOwnCadence() throws InterruptedException {
+        host = new WorldHost(2);
+        HostedWorld fast = host.add(newWorld(), 100);
+        HostedWorld slow = host.add(newWorld(), 10);
+        Thread.sleep(500);
+        host.remove(fast);
+        host.remove(slow);
+
+        assertTrue(fast.getStepCount() > 20);
+        assertTrue(slow.getStepCount() >= 2);
+        assertTrue(fast.getStepCount() > slow.getStepCount() * 3);
+        assertEquals("Each step covers the time since the last", fast.getWorld().getTimePassed(), slow.getWorld().getTimePassed(), 0.2f);
+        assertTrue(fast.getStepTimes().size() > 0);
+        assertTrue(fast.getStepTimes().percentile(50) <= fast.getStepTimes().percentile(99));
+        assertTrue(host.getWorlds().isEmpty());
+    }
+
+    @Test
+    public void testSlowWorldDoesNotStallOthers() throws InterruptedException {
+        host = new WorldHost(2);
+        host.add(new TestWorld(300), 100, 0);
+        HostedWorld pinnedWithSlow = host.add(newWorld(), 100, 0);
+        HostedWorld unpinned = host.add(newWorld(), 100);
+        Thread.sleep(600);
+
+        assertTrue("Picked up by the other worker", pinnedWithSlow.getStepCount() > 10);
+        assertTrue(unpinned.getStepCount() > 10);
+    }
+
+    @Test
+    public void testWorldsAreSteppedOneThreadAtATime() throws InterruptedException {
+        host = new WorldHost(4);
+        List<TestWorld> worlds = new ArrayList<>();
+        List<HostedWorld> hosted = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            TestWorld world = new TestWorld(i % 4 == 0 ? 5 : 0);
+            worlds.add(world);
+            hosted.add(host.add(world, 200));
+        }
+
+        Set<Thread> taskThreads = Collections.synchronizedSet(new HashSet<>());
+        for (HostedWorld world : hosted) {
+            world.execute(w -> taskThreads.add(Thread.currentThread()));
+        }
+        Thread.sleep(400);
+
+        for (TestWorld world : worlds) {
+            assertEquals(1, world.mostAtOnce.get());
+            assertTrue(world.steps.get() > 0);
+        }
+        assertFalse("Tasks run on the workers", taskThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testPinnedWorldStaysOnItsWorker() throws InterruptedException {
+        host = new WorldHost(3);
+        TestWorld world = new TestWorld(0);
+        host.add(world, 100, 1);
+        Thread.sleep(200);
+        host.close();
+
+        assertEquals(1, world.threads.size());
+        assertEquals("WorldHost-1", world.threads.iterator().next().getName());
+    }
+
+    @Test
+    public void testFailedWorldStopsWithoutStoppingOthers() throws InterruptedException {
+        host = new WorldHost(1);
+        HostedWorld failing = host.add(newWorld(), 100);
+        failing.execute(w -> {
+            throw new IllegalStateException("bad task");
+        });
+        HostedWorld healthy = host.add(newWorld(), 100);
+        Thread.sleep(300);
+
+        assertTrue(failing.getFailure() instanceof IllegalStateException);
+        assertEquals(0, failing.getStepCount());
+        assertNull(healthy.getFailure());
+        assertTrue(healthy.getStepCount() > 10);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        host = new WorldHost(2);
+        try {
+            host.add(newWorld(), 0);
+            fail("Steps per second must be positive");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            host.add(newWorld(), 60, 2);
+            fail("No such worker");
+        } catch (IllegalArgumentException expected) {
+        }
+        BitWorld world = newWorld();
+        host.add(world, 60);
+        try {
+            host.add(world, 60);
+            fail("Already hosted");
+        } catch (IllegalArgumentException expected) {
+        }
+        host.close();
+        try {
+            host.add(newWorld(), 60);
+            fail("Closed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static BitWorld newWorld() {
+        BitWorld world = new BitWorld();
+        prepare(world);
+        return world;
+    }
+
+    private static void prepare(BitWorld world) {
+        world.setLevel(new Level(16));
+        world.setGravity(0, -900);
+        BitBody body = new BitBody();
+        body.bodyType = BodyType.DYNAMIC;
+        body.aabb = new BitRectangle(40, 100, 8, 8);
+        world.addBody(body);
+    }
+
+    /**
+     * Keeps track of how it is stepped, optionally taking a while to do it
+     */
+    private static class TestWorld extends BitWorld {
+        final AtomicInteger inStep = new AtomicInteger();
+        final AtomicInteger mostAtOnce = new AtomicInteger();
+        final AtomicInteger steps = new AtomicInteger();
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        private final long sleepMillis;
+
+        TestWorld(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+            prepare(this);
+        }
+
+        @Override
+        public boolean step(float delta) {
+            int atOnce = inStep.incrementAndGet();
+            mostAtOnce.accumulateAndGet(atOnce, Math::max);
+            threads.add(Thread.currentThread());
+            try {
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+                steps.incrementAndGet();
+                return super.step(delta);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inStep.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.GeomUtils;
+import com.bitdecay.jump.geom.PathPoint;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BinaryLevelTest {
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Level level = buildLevel();
+        BinaryLevel binary = BinaryLevel.wrap(ByteBuffer.wrap(BinaryLevelWriter.toBytes(level)));
+
+        assertEquals(TILE_SIZE, binary.getTileSize());
+        assertEquals(3, binary.getTheme());
+        assertEquals(level.gridOffset, binary.getGridOffset());
+        assertEquals(45, binary.getWidth());
+        assertEquals(20, binary.getHeight());
+        assertGridsMatch(TileGrid.fromObjects(level.gridObjects, TILE_SIZE, level.gridOffset), binary.toTileGrid());
+
+        Level loaded = binary.toLevel();
+        for (int x = 0; x < 45; x++) {
+            for (int y = 0; y < 20; y++) {
+                TileObject expected = level.gridObjects[x][y];
+                TileObject actual = loaded.gridObjects[x][y];
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.rect, actual.rect);
+                    assertEquals(expected.material, actual.material);
+                    assertEquals(expected.collideNValue, actual.collideNValue);
+                    assertEquals(expected.renderNValue, actual.renderNValue);
+                    assertEquals(expected.oneway, actual.oneway);
+                }
+            }
+        }
+
+        assertEquals(1, binary.getObjectCount());
+        assertEquals(PathedLevelObject.class.getName(), binary.getObjectType(0));
+        assertEquals(new BitRectangle(32, 48, 64, 16), binary.getObjectRect(0));
+        PathedLevelObject platform = (PathedLevelObject) binary.getObject(0);
+        PathedLevelObject original = (PathedLevelObject) level.otherObjects.get(0);
+        assertEquals(original.uuid, platform.uuid);
+        assertEquals(original.pathPoints, platform.pathPoints);
+        assertTrue(platform.pendulum);
+
+        assertEquals(1, binary.getTriggerCount());
+        TriggerObject trigger = binary.getTrigger(0);
+        assertEquals(original.uuid, trigger.triggeree.uuid);
+        assertEquals(1, loaded.otherObjects.size());
+        assertEquals(1, loaded.triggers.size());
+    }
+
+    @Test
+    public void testConvertJson() throws IOException {
+        Level level = buildLevel();
+        File json = File.createTempFile("binaryLevelTest", ".level");
+        File binaryFile = File.createTempFile("binaryLevelTest", ".bin");
+        try {
+            try (FileWriter writer = new FileWriter(json)) {
+                writer.write(FileUtils.toJson(level));
+            }
+            assertFalse(BinaryLevel.isBinaryLevel(json));
+
+            BinaryLevelWriter.convertJson(json, binaryFile);
+            assertTrue(BinaryLevel.isBinaryLevel(binaryFile));
+            assertTrue("Binary levels are much smaller, got " + binaryFile.length(), binaryFile.length() * 10 < json.length());
+
+            BinaryLevel binary = BinaryLevel.map(binaryFile);
+            assertGridsMatch(TileGrid.fromObjects(level.gridObjects, TILE_SIZE, level.gridOffset), binary.toTileGrid());
+            assertEquals(PathedLevelObject.class.getName(), binary.getObjectType(0));
+        } finally {
+            json.delete();
+            binaryFile.delete();
+        }
+    }
+
+    @Test
+    public void testStreamsChunks() throws IOException {
+        Level level = buildLevel();
+        BinaryLevel binary = BinaryLevel.wrap(ByteBuffer.wrap(BinaryLevelWriter.toBytes(level)));
+        TileGrid dense = TileGrid.fromObjects(level.gridObjects, TILE_SIZE, level.gridOffset);
+        try (ChunkedTileGrid chunked = new ChunkedTileGrid(binary, TILE_SIZE, level.gridOffset)) {
+            chunked.update(Collections.singletonList(new BitRectangle(-200 * TILE_SIZE, -200 * TILE_SIZE, 400 * TILE_SIZE, 400 * TILE_SIZE)), tile -> {});
+            for (int x = -2; x < 47; x++) {
+                for (int y = -2; y < 22; y++) {
+                    assertEquals(dense.isSolid(x, y), chunked.isSolid(x, y));
+                    if (dense.isSolid(x, y)) {
+                        assertEquals(dense.getNValue(x, y), chunked.getNValue(x, y));
+                        assertEquals(dense.getMaterial(x, y), chunked.getMaterial(x, y));
+                        assertEquals(dense.getCollisionAxis(x, y), chunked.getCollisionAxis(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsJson() throws IOException {
+        BinaryLevel.wrap(ByteBuffer.wrap(FileUtils.toJson(buildLevel()).getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncated() throws IOException {
+        byte[] bytes = BinaryLevelWriter.toBytes(buildLevel());
+        BinaryLevel.wrap(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test
+    public void testRejectsBadHeaders() throws IOException {
+        byte[] bytes = BinaryLevelWriter.toBytes(buildLevel());
+        // tile section start, object section start, string section start
+        assertRejected(withInt(bytes, 32, -5));
+        assertRejected(withInt(bytes, 32, 8));
+        assertRejected(withInt(bytes, 40, bytes.length));
+        assertRejected(withInt(bytes, 56, Integer.MAX_VALUE));
+        // grid size overflowing when multiplied out
+        assertRejected(withInt(withInt(bytes, 24, 0x10000), 28, 0x10000));
+        assertRejected(withInt(bytes, 24, -1));
+        // object count
+        assertRejected(withInt(bytes, 36, -1));
+        assertRejected(withInt(bytes, 36, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testRejectsBadStrings() throws IOException {
+        byte[] bytes = BinaryLevelWriter.toBytes(buildLevel());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int objectsStart = buffer.getInt(40);
+        int stringsStart = buffer.getInt(56);
+        // an object's type pointing past the string table
+        assertRejected(withInt(bytes, objectsStart, buffer.getInt(52)));
+        assertRejected(withInt(bytes, objectsStart + 24, -1));
+        // a string starting outside the string section, or running past the end
+        assertRejected(withInt(bytes, stringsStart, -stringsStart));
+        assertRejected(withInt(bytes, stringsStart, bytes.length));
+        int firstString = stringsStart + buffer.getInt(stringsStart);
+        assertRejected(withInt(bytes, firstString, bytes.length));
+        assertRejected(withInt(bytes, firstString, -1));
+    }
+
+    @Test
+    public void testBadFlagsFoundWhenRead() throws IOException {
+        byte[] bytes = BinaryLevelWriter.toBytes(buildLevel());
+        int flagsStart = ByteBuffer.wrap(bytes).getInt(32);
+        int height = ByteBuffer.wrap(bytes).getInt(28);
+        // cell (2, 5) with an axis code past the known axes
+        bytes[flagsStart + 2 * height + 5] = (byte) 0xFF;
+        BinaryLevel binary = BinaryLevel.wrap(ByteBuffer.wrap(bytes));
+
+        assertTrue(binary.isSolid(0, 0));
+        try {
+            binary.verify();
+            fail("Should have found the bad flags");
+        } catch (IOException expected) {
+        }
+        try {
+            binary.isSolid(2, 5);
+            fail("Should have found the bad flags");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            binary.toTileGrid();
+            fail("Should have found the bad flags");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            binary.fillChunk(0, 0, new TileGrid(32, 32, TILE_SIZE, new BitPointInt(0, 0)));
+            fail("Should have found the bad flags");
+        } catch (IllegalStateException expected) {
+        }
+
+        BinaryLevel.wrap(ByteBuffer.wrap(BinaryLevelWriter.toBytes(buildLevel()))).verify();
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] changed = Arrays.copyOf(bytes, bytes.length);
+        ByteBuffer.wrap(changed).putInt(offset, value);
+        return changed;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            BinaryLevel.wrap(ByteBuffer.wrap(bytes));
+            fail("Should not have read a broken level");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void assertGridsMatch(TileGrid expected, TileGrid actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getOffset(), actual.getOffset());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(expected.isSolid(x, y), actual.isSolid(x, y));
+                assertEquals(expected.getNValue(x, y), actual.getNValue(x, y));
+                assertEquals(expected.getMaterial(x, y), actual.getMaterial(x, y));
+                assertEquals(expected.getCollisionAxis(x, y), actual.getCollisionAxis(x, y));
+            }
+        }
+    }
+
+    private static Level buildLevel() {
+        Level level = new Level(TILE_SIZE);
+        level.theme = 3;
+        level.gridOffset = new BitPointInt(-7, -3);
+        level.gridObjects = new TileObject[45][20];
+        for (int x = 0; x < 45; x++) {
+            for (int y = 0; y < 20; y++) {
+                if (y < 2 || x % 11 == 0 || (y == 9 && x % 5 < 3)) {
+                    TileObject tile = new TileObject(new BitRectangle((level.gridOffset.x + x) * TILE_SIZE, (level.gridOffset.y + y) * TILE_SIZE, TILE_SIZE, TILE_SIZE), y == 9, x % 4);
+                    tile.collideNValue = (x + y) & Direction.ALL;
+                    tile.renderNValue = (x * 3 + y) & Direction.ALL;
+                    level.gridObjects[x][y] = tile;
+                }
+            }
+        }
+
+        PathedLevelObject platform = new PathedLevelObject(new BitRectangle(32, 48, 64, 16), Arrays.asList(
+                new PathPoint(new BitPoint(0, 0), 40, 0.5f),
+                new PathPoint(new BitPoint(64, 0), 40, 0)), true);
+        level.otherObjects.add(platform);
+        level.triggers.add(new TriggerObject(platform, platform));
+        return level;
+    }
+}
@@ -0,0 +1,168 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ChunkedTileGridTest {
+    private static final int TILE_SIZE = 16;
+
+    private ChunkedTileGrid chunked;
+
+    @After
+    public void cleanup() {
+        if (chunked != null) {
+            chunked.close();
+        }
+    }
+
+    @Test
+    public void testMatchesDenseGrid() {
+        BitPointInt offset = new BitPointInt(-40, -20);
+        Random random = new Random(3);
+        TileObject[][] objects = new TileObject[100][70];
+        for (int x = 0; x < objects.length; x++) {
+            for (int y = 0; y < objects[0].length; y++) {
+                if (random.nextInt(3) == 0) {
+                    TileObject object = new TileObject(new BitRectangle((offset.x + x) * TILE_SIZE, (offset.y + y) * TILE_SIZE, TILE_SIZE, TILE_SIZE), random.nextBoolean(), random.nextInt(10));
+                    object.collideNValue = random.nextInt(16);
+                    objects[x][y] = object;
+                }
+            }
+        }
+        TileGrid dense = TileGrid.fromObjects(objects, TILE_SIZE, offset);
+        chunked = new ChunkedTileGrid(new LevelChunkSource(objects), TILE_SIZE, offset);
+        chunked.update(Collections.singletonList(new BitRectangle(-100 * TILE_SIZE, -100 * TILE_SIZE, 300 * TILE_SIZE, 300 * TILE_SIZE)), tile -> {});
+
+        for (int x = -5; x < 105; x++) {
+            for (int y = -5; y < 75; y++) {
+                assertEquals(dense.isSolid(x, y), chunked.isSolid(x, y));
+                if (dense.isSolid(x, y)) {
+                    assertEquals(dense.getNValue(x, y), chunked.getNValue(x, y));
+                    assertEquals(dense.getMaterial(x, y), chunked.getMaterial(x, y));
+                    assertEquals(dense.getCollisionAxis(x, y), chunked.getCollisionAxis(x, y));
+                    assertEquals(dense.getTile(x, y).aabb, chunked.getTile(x, y).aabb);
+                    assertTrue(chunked.getTile(x, y) == chunked.getTile(x, y));
+                } else {
+                    assertNull(chunked.getTile(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMemoryStaysBounded() {
+        List<TileBody> unloaded = new ArrayList<>();
+        chunked = new ChunkedTileGrid(new FloorSource(), TILE_SIZE, new BitPointInt(0, 0));
+        chunked.setPreloadChunks(0);
+        BitRectangle area = new BitRectangle(0, -TILE_SIZE, 10 * TILE_SIZE, 10 * TILE_SIZE);
+        List<BitRectangle> areas = Collections.singletonList(area);
+
+        int mostLoaded = 0;
+        for (int i = 0; i < 2000; i++) {
+            area.xy.x = i * 8 * TILE_SIZE;
+            chunked.update(areas, unloaded::add);
+            mostLoaded = Math.max(mostLoaded, chunked.getLoadedChunkCount());
+            int floorX = (int) (area.xy.x / TILE_SIZE);
+            assertTrue("Tiles under the area are always there", chunked.isSolid(floorX, -1));
+            assertNotNull(chunked.getTile(floorX, -1));
+        }
+        assertTrue("Only what the area covers is loaded, got " + mostLoaded, mostLoaded <= 4);
+        assertTrue(unloaded.size() > 1000);
+        assertFalse(chunked.isLoaded(0, -1));
+    }
+
+    @Test
+    public void testPreloadsInBackground() throws InterruptedException {
+        FloorSource source = new FloorSource();
+        chunked = new ChunkedTileGrid(source, TILE_SIZE, new BitPointInt(0, 0));
+        List<BitRectangle> areas = Collections.singletonList(new BitRectangle(TILE_SIZE, -3 * TILE_SIZE, 8, 8));
+        chunked.update(areas, tile -> {});
+        assertTrue(chunked.isLoaded(0, -1));
+        assertTrue("Covered chunks load on the calling thread", source.loadedOn.contains(Thread.currentThread().getName()));
+
+        for (int i = 0; i < 100 && chunked.getLoadedChunkCount() < 9; i++) {
+            Thread.sleep(10);
+            chunked.update(areas, tile -> {});
+        }
+        assertTrue(chunked.isLoaded(1, -1));
+        assertTrue(chunked.isLoaded(-1, 0));
+        assertTrue(source.loadedOn.contains("ChunkedTileGrid-loader"));
+        assertEquals(9, chunked.getLoadedChunkCount());
+    }
+
+    @Test
+    public void testRequestsEachChunkOnce() throws InterruptedException {
+        FloorSource source = new FloorSource();
+        source.gate = new CountDownLatch(1);
+        chunked = new ChunkedTileGrid(source, TILE_SIZE, new BitPointInt(0, 0));
+        List<BitRectangle> areas = Collections.singletonList(new BitRectangle(TILE_SIZE, -3 * TILE_SIZE, 8, 8));
+        // the background loads are held up, so each of these updates finds them still requested
+        for (int i = 0; i < 5; i++) {
+            chunked.update(areas, tile -> {});
+        }
+        source.gate.countDown();
+        for (int i = 0; i < 100 && chunked.getLoadedChunkCount() < 9; i++) {
+            Thread.sleep(10);
+            chunked.update(areas, tile -> {});
+        }
+        assertEquals(9, chunked.getLoadedChunkCount());
+        // including chunk (-1, -1), whose packed key is the same as an empty slot
+        assertEquals(Integer.valueOf(1), source.loads.get("-1,-1"));
+        for (int count : source.loads.values()) {
+            assertEquals("Each chunk is only asked for once", 1, count);
+        }
+    }
+
+    @Test
+    public void testNegativeCells() {
+        chunked = new ChunkedTileGrid(new FloorSource(), TILE_SIZE, new BitPointInt(0, 0));
+        chunked.setPreloadChunks(0);
+        chunked.update(Collections.singletonList(new BitRectangle(-3 * TILE_SIZE, -3 * TILE_SIZE, 8, 8)), tile -> {});
+        assertTrue(chunked.isSolid(-3, -1));
+        assertFalse(chunked.isSolid(-3, -2));
+        assertEquals(-3 * TILE_SIZE, chunked.getTile(-3, -1).aabb.xy.x, 0);
+        assertEquals(-TILE_SIZE, chunked.getTile(-3, -1).aabb.xy.y, 0);
+    }
+
+    /**
+     * An endless floor along row -1
+     */
+    private static class FloorSource implements TileChunkSource {
+        final Set<String> loadedOn = ConcurrentHashMap.newKeySet();
+        final Map<String, Integer> loads = new ConcurrentHashMap<>();
+        volatile CountDownLatch gate;
+
+        @Override
+        public boolean fillChunk(int chunkX, int chunkY, TileGrid chunk) {
+            loadedOn.add(Thread.currentThread().getName());
+            loads.merge(chunkX + "," + chunkY, 1, Integer::sum);
+            if (gate != null && Thread.currentThread().getName().equals("ChunkedTileGrid-loader")) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (chunkY != -1) {
+                return false;
+            }
+            for (int x = 0; x < ChunkedTileGrid.CHUNK_SIZE; x++) {
+                chunk.set(x, ChunkedTileGrid.CHUNK_SIZE - 1, Direction.SIDES, 0, null);
+            }
+            return true;
+        }
+    }
+}
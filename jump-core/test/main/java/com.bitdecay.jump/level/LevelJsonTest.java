@@ -0,0 +1,138 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.PathPoint;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LevelJsonTest {
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void testReadsFullFormat() throws IOException {
+        Level level = buildLevel();
+        Level read = LevelJson.read(new StringReader(FileUtils.toJson(level)));
+        assertSameLevel(level, read);
+        for (int x = 0; x < level.gridObjects.length; x++) {
+            for (int y = 0; y < level.gridObjects[x].length; y++) {
+                if (level.gridObjects[x][y] != null) {
+                    assertEquals(level.gridObjects[x][y].uuid, read.gridObjects[x][y].uuid);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadsExistingLevels() throws IOException {
+        for (String name : Arrays.asList("singleRow", "singleBlock", "internalCorners", "blockLarge")) {
+            File file = new File(getClass().getResource("/test/" + name + ".level").getFile());
+            Level expected = FileUtils.mapper.readValue(file, Level.class);
+            assertSameLevel(expected, LevelJson.read(file));
+        }
+    }
+
+    @Test
+    public void testSparseRoundTrip() throws IOException {
+        Level level = buildLevel();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LevelJson.write(level, out);
+        String sparse = out.toString("UTF-8");
+        assertFalse("Empty cells aren't written", sparse.contains("null"));
+        assertTrue(sparse.length() * 5 < FileUtils.toJson(level).length());
+
+        assertSameLevel(level, LevelJson.read(new ByteArrayInputStream(out.toByteArray())));
+        assertSameLevel(level, FileUtils.loadFileAs(Level.class, sparse));
+    }
+
+    @Test
+    public void testFileUtilsStreamsLevels() throws IOException {
+        Level level = buildLevel();
+        File file = File.createTempFile("levelJsonTest", ".level");
+        try {
+            LevelJson.write(level, file);
+            assertSameLevel(level, FileUtils.loadFileAs(Level.class, file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testSparseTilesNeedGridSize() throws IOException {
+        LevelJson.read(new StringReader("{\"tileSize\": 16, \"tiles\": [[0, 0, 0, 0, 0, 0]]}"));
+    }
+
+    private static void assertSameLevel(Level expected, Level actual) {
+        assertEquals(expected.tileSize, actual.tileSize);
+        assertEquals(expected.theme, actual.theme);
+        assertEquals(expected.gridOffset, actual.gridOffset);
+        assertEquals(expected.gridObjects.length, actual.gridObjects.length);
+        for (int x = 0; x < expected.gridObjects.length; x++) {
+            assertEquals(expected.gridObjects[x].length, actual.gridObjects[x].length);
+            for (int y = 0; y < expected.gridObjects[x].length; y++) {
+                TileObject expectedTile = expected.gridObjects[x][y];
+                TileObject actualTile = actual.gridObjects[x][y];
+                if (expectedTile == null) {
+                    assertNull(actualTile);
+                } else {
+                    assertEquals(expectedTile.rect, actualTile.rect);
+                    assertEquals(expectedTile.material, actualTile.material);
+                    assertEquals(expectedTile.collideNValue, actualTile.collideNValue);
+                    assertEquals(expectedTile.renderNValue, actualTile.renderNValue);
+                    assertEquals(expectedTile.oneway, actualTile.oneway);
+                }
+            }
+        }
+        if (expected.otherObjects == null) {
+            assertNull(actual.otherObjects);
+        } else {
+            assertEquals(expected.otherObjects.size(), actual.otherObjects.size());
+            for (int i = 0; i < expected.otherObjects.size(); i++) {
+                assertEquals(expected.otherObjects.get(i).getClass(), actual.otherObjects.get(i).getClass());
+                assertEquals(expected.otherObjects.get(i).uuid, actual.otherObjects.get(i).uuid);
+                assertEquals(expected.otherObjects.get(i).rect, actual.otherObjects.get(i).rect);
+            }
+        }
+        if (expected.triggers == null) {
+            assertNull(actual.triggers);
+        } else {
+            assertEquals(expected.triggers.size(), actual.triggers.size());
+            for (int i = 0; i < expected.triggers.size(); i++) {
+                assertEquals(expected.triggers.get(i).triggeree.uuid, actual.triggers.get(i).triggeree.uuid);
+            }
+        }
+    }
+
+    private static Level buildLevel() {
+        Level level = new Level(TILE_SIZE);
+        level.theme = 2;
+        level.gridOffset = new BitPointInt(-4, -9);
+        level.gridObjects = new TileObject[60][30];
+        for (int x = 0; x < 60; x++) {
+            for (int y = 0; y < 30; y++) {
+                if (y == 0 || x == 0 || x == 59 || (y == 12 && x % 7 < 4)) {
+                    TileObject tile = new TileObject(new BitRectangle((level.gridOffset.x + x) * TILE_SIZE, (level.gridOffset.y + y) * TILE_SIZE, TILE_SIZE, TILE_SIZE), y == 12, x % 3);
+                    tile.collideNValue = (x + y) & Direction.ALL;
+                    tile.renderNValue = (x * 5 + y) & Direction.ALL;
+                    level.gridObjects[x][y] = tile;
+                }
+            }
+        }
+
+        PathedLevelObject platform = new PathedLevelObject(new BitRectangle(16, 64, 48, 16), Arrays.asList(
+                new PathPoint(new BitPoint(0, 0), 30, 0),
+                new PathPoint(new BitPoint(0, 64), 30, 1)), false);
+        level.otherObjects.add(platform);
+        level.triggers.add(new TriggerObject(platform, platform));
+        return level;
+    }
+}
@@ -0,0 +1,97 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.GeomUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MergedTileGridTest {
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void testMergesMatchingRuns() {
+        // a walled box with a two tile thick floor
+        TileGrid grid = new TileGrid(10, 6, TILE_SIZE, new BitPointInt(2, -1));
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 6; y++) {
+                if (y < 2 || x == 0 || x == 9) {
+                    grid.set(x, y, 0, 0, null);
+                }
+            }
+        }
+        fillNValues(grid);
+        MergedTileGrid merged = MergedTileGrid.merge(grid);
+
+        TileBody floor = merged.getTile(1, 0);
+        assertEquals(new BitRectangle(3 * TILE_SIZE, -TILE_SIZE, 8 * TILE_SIZE, TILE_SIZE), floor.aabb);
+        assertTrue(floor == merged.getTile(8, 0));
+        assertTrue("Rows with different neighbors stay apart", floor != merged.getTile(1, 1));
+        TileBody wall = merged.getTile(0, 2);
+        assertEquals(new BitRectangle(2 * TILE_SIZE, TILE_SIZE, TILE_SIZE, 3 * TILE_SIZE), wall.aabb);
+        assertNull(merged.getTile(4, 3));
+        assertTrue("The top of each wall touches nothing above", wall != merged.getTile(0, 5));
+        assertEquals(10, merged.getBodyCount());
+    }
+
+    @Test
+    public void testEveryCellKeepsItsValues() {
+        TileGrid grid = new TileGrid(30, 20, TILE_SIZE, new BitPointInt(0, 0));
+        for (int x = 0; x < 30; x++) {
+            for (int y = 0; y < 20; y++) {
+                if ((y % 5 < 2 || x % 9 == 0) && (x * 31 + y * 17) % 11 != 0) {
+                    grid.set(x, y, 0, (x / 10) % 2, y == 7 ? GeomUtils.Y_AXIS : null);
+                }
+            }
+        }
+        fillNValues(grid);
+        MergedTileGrid merged = MergedTileGrid.merge(grid);
+
+        int built = 0;
+        for (int x = 0; x < 30; x++) {
+            for (int y = 0; y < 20; y++) {
+                TileBody tile = merged.getTile(x, y);
+                if (!grid.isSolid(x, y)) {
+                    assertNull(tile);
+                    continue;
+                }
+                built++;
+                assertTrue(tile.aabb.contains(new BitRectangle(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE)));
+                assertEquals(grid.getNValue(x, y), tile.nValue);
+                assertEquals(grid.getMaterial(x, y), tile.material);
+                assertEquals(grid.getCollisionAxis(x, y), tile.collisionAxis);
+                if (tile.collisionAxis != null) {
+                    assertEquals("One-way tiles are never merged", TILE_SIZE, tile.aabb.width, 0);
+                }
+            }
+        }
+        int[] count = new int[1];
+        merged.forEachBuiltTile(tile -> count[0]++);
+        assertEquals(merged.getBodyCount(), count[0]);
+        assertTrue(merged.getBodyCount() < built);
+    }
+
+    private static void fillNValues(TileGrid grid) {
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                if (grid.isSolid(x, y)) {
+                    int neighbors = 0;
+                    if (grid.isSolid(x, y + 1)) {
+                        neighbors |= Direction.UP;
+                    }
+                    if (grid.isSolid(x, y - 1)) {
+                        neighbors |= Direction.DOWN;
+                    }
+                    if (grid.isSolid(x + 1, y)) {
+                        neighbors |= Direction.RIGHT;
+                    }
+                    if (grid.isSolid(x - 1, y)) {
+                        neighbors |= Direction.LEFT;
+                    }
+                    grid.set(x, y, neighbors, grid.getMaterial(x, y), grid.getCollisionAxis(x, y));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.bitdecay.jump.level;
+
+import com.bitdecay.jump.BodyType;
+import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
+import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.GeomUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TileGridTest {
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void testMatchesTileObjects() {
+        BitPointInt offset = new BitPointInt(-3, 2);
+        TileObject[][] objects = new TileObject[70][40];
+        for (int x = 0; x < objects.length; x++) {
+            for (int y = 0; y < objects[0].length; y++) {
+                if ((x * 7 + y * 3) % 5 == 0) {
+                    TileObject object = new TileObject(new BitRectangle((offset.x + x) * TILE_SIZE, (offset.y + y) * TILE_SIZE, TILE_SIZE, TILE_SIZE), y % 4 == 0, x % 3);
+                    object.collideNValue = (x + y) & Direction.ALL;
+                    objects[x][y] = object;
+                }
+            }
+        }
+
+        TileGrid grid = TileGrid.fromObjects(objects, TILE_SIZE, offset);
+        assertEquals(70, grid.getWidth());
+        assertEquals(40, grid.getHeight());
+        for (int x = 0; x < objects.length; x++) {
+            for (int y = 0; y < objects[0].length; y++) {
+                TileObject object = objects[x][y];
+                assertEquals(object != null, grid.isSolid(x, y));
+                if (object == null) {
+                    assertNull(grid.getTile(x, y));
+                    continue;
+                }
+                TileBody expected = (TileBody) object.buildBody();
+                TileBody tile = grid.getTile(x, y);
+                assertEquals(expected.aabb, tile.aabb);
+                assertEquals(expected.nValue, tile.nValue);
+                assertEquals(expected.material, tile.material);
+                assertEquals(expected.collisionAxis, tile.collisionAxis);
+                assertEquals(BodyType.STATIC, tile.bodyType);
+                assertTrue("The same body is handed out every time", tile == grid.getTile(x, y));
+            }
+        }
+        assertFalse(grid.isSolid(-1, 0));
+        assertFalse(grid.isSolid(0, 40));
+        assertNull(grid.getTile(70, 0));
+    }
+
+    @Test
+    public void testTilesBuiltOnlyWhenAsked() {
+        TileGrid grid = new TileGrid(100, 100, TILE_SIZE, new BitPointInt(0, 0));
+        for (int x = 0; x < 100; x++) {
+            grid.set(x, 0, Direction.SIDES, 1, null);
+        }
+        assertEquals(0, countBuilt(grid));
+
+        grid.getTile(3, 0);
+        grid.getTile(3, 0);
+        grid.getTile(60, 0);
+        grid.getTile(60, 1);
+        assertEquals(2, countBuilt(grid));
+    }
+
+    @Test
+    public void testReleaseTilesFarFromAreas() {
+        TileGrid grid = new TileGrid(100, 100, TILE_SIZE, new BitPointInt(0, 0));
+        for (int x = 0; x < 100; x++) {
+            grid.set(x, 0, Direction.SIDES, 1, null);
+        }
+        TileBody near = grid.getTile(3, 0);
+        grid.getTile(60, 0);
+        grid.getTile(99, 0);
+
+        List<TileBody> released = new ArrayList<>();
+        List<BitRectangle> areas = new ArrayList<>();
+        areas.add(new BitRectangle(2 * TILE_SIZE, TILE_SIZE, 8, 8));
+        areas.add(new BitRectangle(-500 * TILE_SIZE, TILE_SIZE, 8, 8));
+        grid.releaseTiles(areas, released::add);
+        assertEquals(2, released.size());
+        assertEquals(1, countBuilt(grid));
+        assertTrue("Tiles near an area are kept", near == grid.getTile(3, 0));
+
+        TileBody rebuilt = grid.getTile(60, 0);
+        assertFalse(released.contains(rebuilt));
+        assertEquals(grid.cellX(60), rebuilt.aabb.xy.x, 0);
+
+        released.clear();
+        grid.releaseTiles(new ArrayList<>(), released::add);
+        assertEquals(2, released.size());
+        assertEquals(0, countBuilt(grid));
+    }
+
+    @Test
+    public void testSetAndClear() {
+        TileGrid grid = new TileGrid(4, 4, TILE_SIZE, new BitPointInt(0, 0));
+        grid.set(1, 2, Direction.UP, 300, GeomUtils.NEG_X_AXIS);
+        assertTrue(grid.isSolid(1, 2));
+        assertEquals(Direction.UP, grid.getNValue(1, 2));
+        assertEquals(300, grid.getMaterial(1, 2));
+        assertEquals(GeomUtils.NEG_X_AXIS, grid.getCollisionAxis(1, 2));
+
+        grid.clear(1, 2);
+        assertFalse(grid.isSolid(1, 2));
+        assertNull(grid.getCollisionAxis(1, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOnlyGridAxes() {
+        new TileGrid(1, 1, TILE_SIZE, new BitPointInt(0, 0)).set(0, 0, 0, 0, new BitPoint(1, 1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSetOffGrid() {
+        new TileGrid(1, 1, TILE_SIZE, new BitPointInt(0, 0)).set(1, 0, 0, 0, null);
+    }
+
+    @Test
+    public void testConcurrentBuildsAgree() throws Exception {
+        TileGrid grid = new TileGrid(64, 64, TILE_SIZE, new BitPointInt(0, 0));
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                grid.set(x, y, 0, 0, null);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TileBody[]>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    TileBody[] seen = new TileBody[64 * 64];
+                    for (int x = 0; x < 64; x++) {
+                        for (int y = 0; y < 64; y++) {
+                            seen[x * 64 + y] = grid.getTile(x, y);
+                        }
+                    }
+                    return seen;
+                }));
+            }
+            TileBody[] first = results.get(0).get();
+            for (Future<TileBody[]> result : results) {
+                TileBody[] seen = result.get();
+                for (int i = 0; i < seen.length; i++) {
+                    assertTrue(seen[i] == first[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(64 * 64, countBuilt(grid));
+    }
+
+    private int countBuilt(TileGrid grid) {
+        int[] count = new int[1];
+        grid.forEachBuiltTile(tile -> count[0]++);
+        return count[0];
+    }
+}
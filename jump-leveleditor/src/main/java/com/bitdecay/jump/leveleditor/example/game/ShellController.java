@@ -1,6 +1,7 @@
 package com.bitdecay.jump.leveleditor.example.game;
 
 import com.bitdecay.jump.BitBody;
+import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.BitBodyController;
 
 /**
@@ -17,7 +18,7 @@ public class ShellController implements BitBodyController {
     }
 
     @Override
-    public void update(float delta, BitBody body) {
+    public void update(float delta, BitBody body, BitWorld world) {
         if (moving) {
             if (left) {
                 if (body.lastResolution.x > 0) {
@@ -7,11 +7,13 @@ import com.bitdecay.jump.BitBody;
 import com.bitdecay.jump.collision.BitWorld;
 import com.bitdecay.jump.control.PathedBodyController;
 import com.bitdecay.jump.geom.BitPoint;
+import com.bitdecay.jump.geom.BitPointInt;
 import com.bitdecay.jump.geom.BitRectangle;
+import com.bitdecay.jump.geom.CellRange;
 import com.bitdecay.jump.geom.GeomUtils;
 import com.bitdecay.jump.geom.PathPoint;
 import com.bitdecay.jump.level.Direction;
-import com.bitdecay.jump.level.TileBody;
+import com.bitdecay.jump.level.TileLayer;
 import com.bitdecay.jump.leveleditor.tools.BitColors;
 
 import java.util.List;
@@ -31,25 +33,26 @@ public class LibGDXWorldRenderer implements BitWorldRenderer {
         renderer.begin(ShapeType.Line);
         renderer.setColor(BitColors.STATIC_OBJECT);
         if (RenderLayer.TILES.enabled) {
-            BitBody[][] gridObjects = world.getGrid();
-            for (int x = 0; x < gridObjects.length; x++) {
-                BitBody[] column = gridObjects[x];
-                for (int y = 0; y < column.length; y++) {
-                    if (column[y] != null) {
-                        BitBody levelObject = column[y];
-                        if (GeomUtils.intersection(view, levelObject.aabb) == null) {
+            TileLayer grid = world.getGrid();
+            int tileSize = grid.getTileSize();
+            BitPointInt offset = grid.getOffset();
+            BitRectangle tileRect = new BitRectangle(0, 0, tileSize, tileSize);
+            // only look at the cells on camera
+            CellRange cells = new CellRange().set(view, tileSize, offset);
+            for (int x = cells.startX; x <= cells.endX; x++) {
+                for (int y = cells.startY; y <= cells.endY; y++) {
+                    if (grid.isSolid(x, y)) {
+                        tileRect.xy.set((offset.x + x) * tileSize, (offset.y + y) * tileSize);
+                        if (GeomUtils.intersection(view, tileRect) == null) {
                             // don't even attempt to draw if not on camera
                             continue;
                         }
-                        float leftX = levelObject.aabb.xy.x;
-                        float rightX = levelObject.aabb.xy.x + levelObject.aabb.width;
-                        float bottomY = levelObject.aabb.xy.y;
-                        float topY = levelObject.aabb.xy.y + levelObject.aabb.height;
-                        int nValue = 0;
-                        if (levelObject instanceof TileBody) {
-                            nValue = ((TileBody) levelObject).nValue;
-                        }
-                        if (((TileBody) levelObject).collisionAxis != null) {
+                        float leftX = tileRect.xy.x;
+                        float rightX = tileRect.xy.x + tileRect.width;
+                        float bottomY = tileRect.xy.y;
+                        float topY = tileRect.xy.y + tileRect.height;
+                        int nValue = grid.getNValue(x, y);
+                        if (grid.getCollisionAxis(x, y) != null) {
                             // currently we are just assuming it's a one-way platform
                             renderer.setColor(BitColors.COLLISION);
                             renderer.line(leftX, topY, rightX, topY);
@@ -1,11 +1,13 @@
 package com.bitdecay.jump.leveleditor.utils;
 
+import com.bitdecay.jump.level.BinaryLevel;
 import com.bitdecay.jump.level.FileUtils;
 import com.bitdecay.jump.level.Level;
 import com.bitdecay.jump.level.builder.LevelBuilder;
 
 import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
 
 public class LevelUtilities {
 	public static Level loadLevel() {
@@ -13,12 +15,25 @@ public class LevelUtilities {
 	}
 
 	public static Level loadLevel(String fileName) {
-		return FileUtils.loadFileAs(Level.class, new File(fileName));
+		return loadLevel(new File(fileName));
 	}
 
+	/**
+	 * Loads either a binary or a JSON level
+	 */
 	public static Level loadLevel(File file) {
-
-		return null;
+		if (BinaryLevel.isBinaryLevel(file)) {
+			try {
+				// every cell is read to build the level anyway, so a bad one is reported like any other broken file
+				BinaryLevel level = BinaryLevel.map(file);
+				level.verify();
+				return level.toLevel();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+		return FileUtils.loadFileAs(Level.class, file);
 	}
 
 	public static Level saveLevel(LevelBuilder builder, boolean canCancel) {
@@ -28,8 +43,7 @@ public class LevelUtilities {
 			UIManager.put("FileChooser.cancelButtonText", "Don't Save");
 		}
 		Level level = builder.optimizeLevel();
-		String savedContent = FileUtils.saveToFile(level);
-		if (savedContent != null) {
+		if (FileUtils.saveLevelToFile(level)) {
 			return level;
 		} else {
 			return null;